@@ -1,6 +1,8 @@
 package com.classroom;
 
+import com.classroom.agents.AgentExecutors;
 import com.classroom.agents.OrchestratorAgent;
+import com.classroom.concurrent.Deadline;
 import com.classroom.memory.ClassroomMemoryService;
 import com.classroom.observability.MetricsService;
 import com.classroom.tools.StudentPerformanceTool;
@@ -12,24 +14,65 @@ import com.google.adk.tools.ToolRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Main application class for the Classroom Assistant Multi-Agent System
  */
 public class ClassroomAssistantApplication {
     private static final Logger logger = LoggerFactory.getLogger(ClassroomAssistantApplication.class);
+    private static final long DEFAULT_REQUEST_TIMEOUT_MS = 60_000;
+    private static final int STARTUP_WARM_UP_PLANS = 64;
     
     private final AgentRuntime runtime;
     private final SessionService sessionService;
     private final MemoryBank memoryBank;
     private final OrchestratorAgent orchestrator;
     private final MetricsService metricsService;
+    private final Executor agentExecutor;
+    private final AtomicLong activeSessions = new AtomicLong();
+    private volatile long requestTimeoutMs = DEFAULT_REQUEST_TIMEOUT_MS;
     
     public ClassroomAssistantApplication() {
+        this(AgentExecutors.defaultExecutor());
+    }
+    
+    /**
+     * @param agentExecutor runs requests submitted through {@link #processAsync},
+     *                      e.g. {@link AgentExecutors#virtualThreadExecutor()}
+     */
+    public ClassroomAssistantApplication(Executor agentExecutor) {
+        this(agentExecutor, new MemoryBank());
+    }
+    
+    /**
+     * @param memoryBank classroom memory, e.g. one restored from a previous
+     *                   run; its stored lesson plans are preloaded into the
+     *                   lesson plan cache at start-up
+     */
+    public ClassroomAssistantApplication(Executor agentExecutor, MemoryBank memoryBank) {
+        this(agentExecutor, memoryBank, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * @param gradingPool grades large batches of student responses, e.g.
+     *                    {@code new ForkJoinPool(8)} to grade eight at once;
+     *                    the common pool by default
+     */
+    public ClassroomAssistantApplication(Executor agentExecutor, MemoryBank memoryBank, ForkJoinPool gradingPool) {
         logger.info("Initializing Classroom Assistant Multi-Agent System");
+        this.agentExecutor = agentExecutor;
         
         // Initialize core services
         this.sessionService = new InMemorySessionService();
-        this.memoryBank = new MemoryBank();
+        this.memoryBank = memoryBank;
         this.runtime = new AgentRuntime();
         
         // Initialize memory service
@@ -47,19 +90,58 @@ public class ClassroomAssistantApplication {
             runtime, 
             sessionService, 
             memoryService, 
-            toolRegistry
+            toolRegistry,
+            agentExecutor,
+            gradingPool
         );
         
+        warmUpLessonPlanCache(STARTUP_WARM_UP_PLANS);
+        
         logger.info("Classroom Assistant initialized successfully");
     }
     
+    /**
+     * Time each request, or each batch, may take before its work is
+     * cancelled; one minute by default.
+     */
+    public void setRequestTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Request timeout must be positive");
+        }
+        this.requestTimeoutMs = unit.toMillis(timeout);
+    }
+    
+    /**
+     * Preloads up to maxPlans of the lesson plans stored in memory, most
+     * requested first, so requests for them skip generation. Runs at
+     * start-up; call it again to reload plans that have expired from the
+     * cache but are still in memory.
+     */
+    public int warmUpLessonPlanCache(int maxPlans) {
+        logger.info("Warming up lesson plan cache with up to {} plans", maxPlans);
+        return orchestrator.warmUpLessonPlans(maxPlans);
+    }
+    
     public String processRequest(String teacherRequest) {
+        Deadline deadline = newDeadline();
+        try {
+            return processRequest(teacherRequest, deadline);
+        } finally {
+            deadline.release();
+        }
+    }
+    
+    /**
+     * Processes the request, cancelling and interrupting its work in every
+     * agent and tool once the deadline expires.
+     */
+    public String processRequest(String teacherRequest, Deadline deadline) {
         logger.info("Processing teacher request: {}", teacherRequest);
         long startTime = System.currentTimeMillis();
         
         try {
-            metricsService.setGauge("active_sessions", 1);
-            String response = orchestrator.process(teacherRequest);
+            metricsService.setGauge("active_sessions", activeSessions.incrementAndGet());
+            String response = orchestrator.process(teacherRequest, deadline);
             
             long duration = System.currentTimeMillis() - startTime;
             metricsService.recordTimer("request_duration", duration);
@@ -70,10 +152,76 @@ public class ClassroomAssistantApplication {
             logger.error("Error processing request", e);
             return "I apologize, but I encountered an error processing your request. Please try again.";
         } finally {
-            metricsService.setGauge("active_sessions", 0);
+            metricsService.setGauge("active_sessions", activeSessions.decrementAndGet());
+        }
+    }
+    
+    /**
+     * Non-blocking variant of {@link #processRequest}; the returned future
+     * completes on the agent executor with the response.
+     */
+    public CompletableFuture<String> processAsync(String teacherRequest) {
+        Deadline deadline = newDeadline();
+        return processAsync(teacherRequest, deadline).whenComplete((response, e) -> deadline.release());
+    }
+    
+    public CompletableFuture<String> processAsync(String teacherRequest, Deadline deadline) {
+        logger.info("Processing teacher request asynchronously: {}", teacherRequest);
+        long startTime = System.currentTimeMillis();
+        metricsService.setGauge("active_sessions", activeSessions.incrementAndGet());
+        
+        return orchestrator.processAsync(teacherRequest, deadline)
+            .handle((response, e) -> {
+                metricsService.setGauge("active_sessions", activeSessions.decrementAndGet());
+                if (e != null) {
+                    logger.error("Error processing request", e);
+                    return "I apologize, but I encountered an error processing your request. Please try again.";
+                }
+                long duration = System.currentTimeMillis() - startTime;
+                metricsService.recordTimer("request_duration", duration);
+                
+                logger.info("Request processed successfully in {}ms", duration);
+                return response;
+            });
+    }
+    
+    /**
+     * Processes a batch of requests, e.g. nightly material generation for
+     * every class, returning the responses in input order. Batch throughput
+     * and latency are recorded in the metrics report.
+     */
+    public List<String> processBatch(List<String> teacherRequests) {
+        Deadline deadline = newDeadline();
+        try {
+            return processBatch(teacherRequests, deadline);
+        } finally {
+            deadline.release();
         }
     }
     
+    /**
+     * Like {@link #processBatch(List)}, with one deadline for the whole batch.
+     */
+    public List<String> processBatch(List<String> teacherRequests, Deadline deadline) {
+        logger.info("Processing batch of {} teacher requests", teacherRequests.size());
+        
+        try {
+            metricsService.setGauge("active_sessions", activeSessions.addAndGet(teacherRequests.size()));
+            return orchestrator.processBatch(teacherRequests, deadline);
+        } catch (Exception e) {
+            logger.error("Error processing request batch", e);
+            String failure = "I apologize, but I encountered an error processing your request. Please try again.";
+            return new ArrayList<>(Collections.nCopies(teacherRequests.size(), failure));
+        } finally {
+            metricsService.setGauge("active_sessions", activeSessions.addAndGet(-teacherRequests.size()));
+        }
+    }
+    
+    private Deadline newDeadline() {
+        // Cancellation work runs on the agent executor, not on the timer thread
+        return Deadline.after(requestTimeoutMs, TimeUnit.MILLISECONDS, agentExecutor);
+    }
+    
     public static void main(String[] args) {
         ClassroomAssistantApplication app = new ClassroomAssistantApplication();
         
@@ -0,0 +1,60 @@
+package com.classroom.agents;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for running agent work off the common ForkJoinPool. Threads
+ * are daemons, so an application that never shuts its executor down can
+ * still exit.
+ */
+public final class AgentExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(AgentExecutors.class);
+
+    private AgentExecutors() {
+    }
+
+    /**
+     * Fixed pool of daemon threads named {@code classroom-agent-N}.
+     */
+    public static ExecutorService fixedThreadPool(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Agent executor needs at least one thread");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "classroom-agent-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fixed pool sized to the number of available processors.
+     */
+    public static ExecutorService defaultExecutor() {
+        return fixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * One virtual thread per task on Java 21 and later, otherwise the
+     * {@linkplain #defaultExecutor() default pool}. The build targets Java
+     * 17, so the factory method is looked up reflectively.
+     */
+    public static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            logger.info("Using virtual threads for agent work");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            logger.info("Virtual threads unavailable on this JVM, using a fixed agent pool");
+            return defaultExecutor();
+        }
+    }
+}
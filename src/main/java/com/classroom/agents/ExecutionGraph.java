@@ -0,0 +1,182 @@
+package com.classroom.agents;
+
+import com.classroom.concurrent.Deadline;
+import com.classroom.observability.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the steps of a multi-step request as a dependency graph. Each step
+ * is a node declared with the nodes whose results it needs; a node starts
+ * on the executor as soon as its inputs are complete, so independent nodes
+ * run concurrently. Inputs are handed over by reference.
+ *
+ * A node can only depend on nodes added before it, which keeps the graph
+ * acyclic. Nothing runs until {@link #run}; a graph is run once. Each
+ * node's duration is recorded as the timer
+ * {@code <graph>_<node>_duration} and logged when the graph completes.
+ * A graph built with a {@link Deadline} checks it before starting each
+ * node, so nodes still waiting when it expires never run.
+ */
+public final class ExecutionGraph {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionGraph.class);
+
+    private final String name;
+    private final Executor executor;
+    private final Deadline deadline;
+    private final MetricsService metricsService;
+    private final List<Node<?>> nodes = new ArrayList<>();
+    private boolean started;
+
+    public ExecutionGraph(String name, Executor executor) {
+        this(name, executor, Deadline.none());
+    }
+
+    public ExecutionGraph(String name, Executor executor, Deadline deadline) {
+        this.name = name;
+        this.executor = executor;
+        this.deadline = deadline;
+        this.metricsService = MetricsService.getInstance();
+    }
+
+    /**
+     * Adds a node without inputs whose step completes asynchronously.
+     */
+    public <T> Node<T> addAsync(String id, Supplier<CompletableFuture<T>> step) {
+        return addNode(id, Collections.emptyList(), inputs -> step.get());
+    }
+
+    /**
+     * Adds a node that runs once its input is available.
+     */
+    public <A, T> Node<T> add(String id, Node<A> input, Function<? super A, ? extends T> step) {
+        return addNode(id, Collections.singletonList(input),
+            inputs -> CompletableFuture.completedFuture(step.apply(input.result())));
+    }
+
+    /**
+     * Adds a node that runs once both inputs are available.
+     */
+    public <A, B, T> Node<T> add(String id, Node<A> first, Node<B> second,
+                                 BiFunction<? super A, ? super B, ? extends T> step) {
+        return addNode(id, Arrays.asList(first, second),
+            inputs -> CompletableFuture.completedFuture(step.apply(first.result(), second.result())));
+    }
+
+    /**
+     * Starts every node. The returned future completes with the result of
+     * {@code result} once all nodes have finished, or exceptionally with
+     * the first failure.
+     */
+    public <T> CompletableFuture<T> run(Node<T> result) {
+        synchronized (this) {
+            if (started) {
+                throw new IllegalStateException("Execution graph " + name + " has already run");
+            }
+            started = true;
+        }
+        if (result.graph != this) {
+            throw new IllegalArgumentException("Node " + result.id + " belongs to another graph");
+        }
+
+        long startedAt = System.nanoTime();
+        CompletableFuture<?>[] all = new CompletableFuture<?>[nodes.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = nodes.get(i).schedule(executor);
+        }
+
+        return CompletableFuture.allOf(all).thenApply(ignored -> {
+            long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+            logger.info("Execution graph {} completed in {}ms: {}", name, elapsedMs, getTimings());
+            return result.result();
+        });
+    }
+
+    /**
+     * Duration of each finished node in milliseconds, in declaration order.
+     */
+    public Map<String, Long> getTimings() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        for (Node<?> node : nodes) {
+            if (node.durationMs >= 0) {
+                timings.put(node.id, node.durationMs);
+            }
+        }
+        return timings;
+    }
+
+    private <T> Node<T> addNode(String id, List<Node<?>> inputs, Function<List<Node<?>>, CompletableFuture<T>> step) {
+        for (Node<?> input : inputs) {
+            if (input.graph != this) {
+                throw new IllegalArgumentException("Node " + id + " depends on " + input.id + " from another graph");
+            }
+        }
+        synchronized (this) {
+            if (started) {
+                throw new IllegalStateException("Cannot add node " + id + " after execution graph " + name + " has run");
+            }
+            Node<T> node = new Node<>(this, id, inputs, step);
+            nodes.add(node);
+            return node;
+        }
+    }
+
+    /**
+     * One step of the graph; pass it to later nodes to depend on its result.
+     */
+    public static final class Node<T> {
+        private final ExecutionGraph graph;
+        private final String id;
+        private final List<Node<?>> inputs;
+        private final Function<List<Node<?>>, CompletableFuture<T>> step;
+        private CompletableFuture<T> future;
+        private volatile long durationMs = -1;
+
+        private Node(ExecutionGraph graph, String id, List<Node<?>> inputs,
+                     Function<List<Node<?>>, CompletableFuture<T>> step) {
+            this.graph = graph;
+            this.id = id;
+            this.inputs = inputs;
+            this.step = step;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        private CompletableFuture<T> schedule(Executor executor) {
+            CompletableFuture<?>[] ready = new CompletableFuture<?>[inputs.size()];
+            for (int i = 0; i < ready.length; i++) {
+                ready[i] = inputs.get(i).future;
+            }
+            future = CompletableFuture.allOf(ready).thenComposeAsync(ignored -> {
+                graph.deadline.check();
+                long startedAt = System.nanoTime();
+                return step.apply(inputs).whenComplete((value, e) -> {
+                    durationMs = (System.nanoTime() - startedAt) / 1_000_000;
+                    graph.metricsService.recordTimer(graph.name + "_" + id + "_duration", durationMs);
+                });
+            }, executor);
+            return future;
+        }
+
+        /**
+         * Result of a completed node; only called once the node's future is done.
+         */
+        private T result() {
+            return future.join();
+        }
+    }
+}
@@ -1,6 +1,14 @@
 package com.classroom.agents;
 
+import com.classroom.concurrent.Deadline;
+import com.classroom.concurrent.DeadlineExceededException;
+import com.classroom.grading.GradingMemo;
+import com.classroom.grading.GradingProgress;
+import com.classroom.grading.NearDuplicateDetector;
+import com.classroom.grading.Rubric;
 import com.classroom.memory.ClassroomMemoryService;
+import com.classroom.memory.GradingResultStore;
+import com.classroom.observability.MetricsService;
 import com.google.adk.agents.Agent;
 import com.google.adk.agents.LLMAgent;
 import com.google.adk.core.AgentRuntime;
@@ -8,8 +16,17 @@ import com.google.adk.core.SessionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
  * GradingAgent - Processes student responses and provides feedback
@@ -17,108 +34,261 @@ import java.util.List;
 @Agent(name = "GradingAgent", description = "Grades student work and provides feedback")
 public class GradingAgent extends LLMAgent {
     private static final Logger logger = LoggerFactory.getLogger(GradingAgent.class);
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
+    private static final int RESPONSES_PER_TASK = 256;
+    private static final int MEMO_CAPACITY = 16384;
+    private static final int MAX_REPORTED_CLUSTERS = 50;
+    private static final String SUMMARY_HEADER = "GRADING SUMMARY\n===============\n\n";
     
     private final ClassroomMemoryService memoryService;
+    private final ForkJoinPool gradingPool;
+    private final MetricsService metricsService;
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private volatile Rubric rubric = Rubric.defaultRubric();
+    private final GradingMemo memo = new GradingMemo(MEMO_CAPACITY);
+    private volatile GradingProgress currentProgress;
     
     public GradingAgent(AgentRuntime runtime, SessionService sessionService, 
                        ClassroomMemoryService memoryService) {
+        this(runtime, sessionService, memoryService, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * @param gradingPool work-stealing pool that grades large batches; its
+     *                    parallelism (e.g. {@code new ForkJoinPool(8)}) sets
+     *                    how many responses are graded at once
+     */
+    public GradingAgent(AgentRuntime runtime, SessionService sessionService, 
+                       ClassroomMemoryService memoryService, ForkJoinPool gradingPool) {
         super(runtime, sessionService);
         this.memoryService = memoryService;
-        logger.info("GradingAgent initialized with memory service");
+        this.gradingPool = gradingPool;
+        this.metricsService = MetricsService.getInstance();
+        logger.info("GradingAgent initialized with memory service, grading parallelism {}",
+            gradingPool.getParallelism());
+    }
+    
+    /**
+     * Batches with at least this many responses are graded in parallel;
+     * smaller ones are graded on the calling thread. Use
+     * {@link Integer#MAX_VALUE} to always grade sequentially.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+    
+    /**
+     * Replaces the rubric used for scoring, e.g. one loaded with {@link Rubric#load}.
+     */
+    public void setRubric(Rubric rubric) {
+        logger.info("Using rubric {} version {} with {} terms",
+            rubric.getName(), rubric.getVersion(), rubric.getTermCount());
+        this.rubric = rubric;
+        memo.clear();
+    }
+    
+    public Rubric getRubric() {
+        return rubric;
+    }
+    
+    /**
+     * Live statistics of the current (or most recent) grading batch,
+     * readable from any thread while grading runs.
+     */
+    public String getGradingProgress() {
+        GradingProgress progress = currentProgress;
+        return progress == null ? "No grading has run yet." : progress.describe();
     }
     
     public String processGrading(String request) {
+        return processGrading(request, Deadline.none());
+    }
+    
+    /**
+     * Grades the request's responses, stopping early once the deadline
+     * expires; grading threads check it before each response.
+     */
+    public String processGrading(String request, Deadline deadline) {
+        return processGrading(request, deadline, stored -> { });
+    }
+    
+    /**
+     * Like {@link #processGrading(String, Deadline)}, also handing the batch
+     * stored in memory to the caller once grading succeeds.
+     */
+    String processGrading(String request, Deadline deadline, Consumer<GradingResultStore> storedResults) {
         logger.info("Processing grading request");
         
         try {
             // Parse student responses from request
             List<StudentResponse> responses = parseStudentResponses(request);
             
-            // Grade each response
-            List<GradingResult> results = new ArrayList<>();
-            for (StudentResponse response : responses) {
-                GradingResult result = gradeResponse(response);
-                results.add(result);
+            // Grade each response, collecting statistics and similarity signatures in the same pass
+            GradingBatch batch = gradeAll(responses, deadline);
+            List<GradingResult> results = batch.getResults();
+            List<int[]> duplicateClusters = batch.duplicateDetector.findClusters();
+            if (!duplicateClusters.isEmpty()) {
+                metricsService.incrementCounter("duplicate_answer_clusters", duplicateClusters.size());
             }
             
             // Generate summary
-            String summary = generateGradingSummary(results);
+            String summary = generateGradingSummary(results, batch.progress, duplicateClusters);
             
-            // Store results in memory
-            memoryService.storeGradingResults(results);
+            // Store results in memory in compact columnar form
+            GradingResultStore.Builder stored = memoryService.newGradingResultBuilder(results.size());
+            for (GradingResult result : results) {
+                stored.add(result.getStudentName(), result.getAnswer(), result.getScore(), result.getFeedback());
+            }
+            GradingResultStore store = stored.build();
+            memoryService.storeGradingResults(store);
+            storedResults.accept(store);
             
             logger.info("Grading completed for {} responses", responses.size());
             return summary;
             
+        } catch (CancellationException e) {
+            logger.warn("Grading abandoned: {}", e.getMessage());
+            return "Grading stopped: the request deadline passed before all responses were graded.";
         } catch (Exception e) {
             logger.error("Error processing grading", e);
             return "Error processing grading. Please check the format of student responses.";
         }
     }
     
+    /**
+     * Streaming variant of {@link #processGrading(String)}: reads
+     * Student:/Answer: blocks from the reader, grades each block as soon as
+     * the next one starts (or the input ends) and writes its result straight
+     * to the writer, followed by the class statistics. Only one submission
+     * is held in memory at a time, so the individual results are not stored
+     * in classroom memory. Returns the number of responses graded.
+     */
+    public long processGrading(Reader submissions, Writer output) throws IOException {
+        return processGrading(submissions, output, Deadline.none());
+    }
+    
+    /**
+     * Like {@link #processGrading(Reader, Writer)}, checking the deadline
+     * before each response. Results already written stay in the output.
+     *
+     * @throws DeadlineExceededException if the deadline expires before the input is exhausted
+     */
+    public long processGrading(Reader submissions, Writer output, Deadline deadline) throws IOException {
+        logger.info("Processing streamed grading request");
+        
+        long startTime = System.currentTimeMillis();
+        Rubric streamRubric = rubric;
+        GradingProgress progress = new GradingProgress(-1);
+        currentProgress = progress;
+        BufferedReader reader = submissions instanceof BufferedReader
+            ? (BufferedReader) submissions : new BufferedReader(submissions);
+        ResponseAssembler assembler = new ResponseAssembler();
+        
+        output.write(SUMMARY_HEADER);
+        String line;
+        do {
+            line = reader.readLine();
+            StudentResponse response = line != null ? assembler.accept(line) : assembler.finish();
+            if (response != null) {
+                try {
+                    deadline.check();
+                } catch (DeadlineExceededException e) {
+                    progress.cancel();
+                    logger.warn("Streamed grading abandoned after {} responses", progress.getCount());
+                    throw e;
+                }
+                GradingResult result = gradeResponse(streamRubric, response);
+                progress.record(result.getScore());
+                output.write(formatResult(result));
+            }
+        } while (line != null);
+        
+        progress.finish();
+        long count = progress.getCount();
+        output.write(formatClassStatistics(progress.getAverageScore(), count, progress.getHighScoreCount()));
+        output.flush();
+        
+        long duration = System.currentTimeMillis() - startTime;
+        metricsService.recordGradingBatch((int) Math.min(count, Integer.MAX_VALUE), duration, 1);
+        metricsService.recordGradingMemo(memo.drainHits(), memo.drainMisses());
+        logger.info("Streamed grading completed for {} responses in {}ms", count, duration);
+        return count;
+    }
+    
     private List<StudentResponse> parseStudentResponses(String request) {
         List<StudentResponse> responses = new ArrayList<>();
+        ResponseAssembler assembler = new ResponseAssembler();
         
         // Simple parsing - in real implementation would be more sophisticated
-        String[] lines = request.split("\n");
-        String currentStudent = null;
-        StringBuilder currentAnswer = new StringBuilder();
-        
-        for (String line : lines) {
-            if (line.startsWith("Student:")) {
-                if (currentStudent != null) {
-                    responses.add(new StudentResponse(currentStudent, currentAnswer.toString().trim()));
-                }
-                currentStudent = line.substring(8).trim();
-                currentAnswer = new StringBuilder();
-            } else if (line.startsWith("Answer:")) {
-                currentAnswer.append(line.substring(7).trim());
-            } else if (!line.trim().isEmpty() && currentStudent != null) {
-                currentAnswer.append(" ").append(line.trim());
+        for (String line : request.split("\n")) {
+            StudentResponse response = assembler.accept(line);
+            if (response != null) {
+                responses.add(response);
             }
         }
         
-        if (currentStudent != null) {
-            responses.add(new StudentResponse(currentStudent, currentAnswer.toString().trim()));
+        StudentResponse last = assembler.finish();
+        if (last != null) {
+            responses.add(last);
         }
         
         return responses;
     }
     
-    private GradingResult gradeResponse(StudentResponse response) {
-        logger.debug("Grading response for student: {}", response.getStudentName());
+    /**
+     * Grades a batch, splitting large ones across the grading pool. Results
+     * are in submission order either way. Running statistics and similarity
+     * signatures are collected in the same pass, and the batch's progress
+     * is visible through {@link #getGradingProgress()} while it runs.
+     */
+    private GradingBatch gradeAll(List<StudentResponse> responses, Deadline deadline) {
+        long startTime = System.currentTimeMillis();
+        GradingBatch batch = new GradingBatch(rubric, responses.toArray(new StudentResponse[0]), deadline);
+        currentProgress = batch.progress;
+        int size = batch.responses.length;
         
-        // Analyze the response
-        int score = analyzeResponse(response.getAnswer());
-        String feedback = generateFeedback(response.getAnswer(), score);
+        int parallelism = 1;
+        try {
+            if (size >= parallelThreshold && gradingPool.getParallelism() > 1) {
+                parallelism = gradingPool.getParallelism();
+                gradingPool.invoke(new GradeRangeTask(batch, 0, size));
+            } else {
+                batch.gradeRange(0, size);
+            }
+        } catch (CancellationException e) {
+            batch.progress.cancel();
+            throw e;
+        }
+        batch.progress.finish();
         
-        return new GradingResult(response.getStudentName(), response.getAnswer(), score, feedback);
+        long duration = System.currentTimeMillis() - startTime;
+        metricsService.recordGradingBatch(size, duration, parallelism);
+        metricsService.recordGradingMemo(memo.drainHits(), memo.drainMisses());
+        logger.info("Graded {} responses in {}ms with parallelism {}", size, duration, parallelism);
+        return batch;
     }
     
-    private int analyzeResponse(String answer) {
-        // Simple scoring logic - in real implementation would use more sophisticated NLP
-        if (answer == null || answer.trim().isEmpty()) {
-            return 0;
-        }
-        
-        String lowerAnswer = answer.toLowerCase();
-        int score = 50; // Base score
+    private GradingResult gradeResponse(Rubric rubric, StudentResponse response) {
+        logger.debug("Grading response for student: {}", response.getStudentName());
         
-        // Check for key indicators of good answers
-        if (lowerAnswer.contains("because") || lowerAnswer.contains("therefore")) {
-            score += 20; // Shows reasoning
-        }
-        if (lowerAnswer.length() > 50) {
-            score += 15; // Detailed response
-        }
-        if (lowerAnswer.contains("example") || lowerAnswer.contains("for instance")) {
-            score += 15; // Provides examples
+        // Identical answers (ignoring case) get the same grade; reuse it
+        String answer = response.getAnswer();
+        long answerHash = GradingMemo.hash(answer);
+        GradingMemo.Entry memoized = memo.get(answerHash, rubric.getKey(), answer);
+        if (memoized != null) {
+            return new GradingResult(response.getStudentName(), answer, memoized.getScore(), memoized.getFeedback());
         }
         
-        return Math.min(100, score);
+        // One scan of the answer yields both the score and the missed-category hints
+        Rubric.Evaluation evaluation = rubric.evaluate(answer);
+        String feedback = generateFeedback(answer, evaluation);
+        memo.put(answerHash, rubric.getKey(), answer, evaluation.getScore(), feedback);
+        
+        return new GradingResult(response.getStudentName(), answer, evaluation.getScore(), feedback);
     }
     
-    private String generateFeedback(String answer, int score) {
+    private String generateFeedback(String answer, Rubric.Evaluation evaluation) {
+        int score = evaluation.getScore();
         StringBuilder feedback = new StringBuilder();
         
         if (score >= 90) {
@@ -135,8 +305,8 @@ public class GradingAgent extends LLMAgent {
         if (answer.length() < 20) {
             feedback.append("Try to provide more detailed explanations. ");
         }
-        if (!answer.toLowerCase().contains("because")) {
-            feedback.append("Consider explaining your reasoning. ");
+        for (String hint : evaluation.getHints()) {
+            feedback.append(hint).append(" ");
         }
         
         feedback.append("Score: ").append(score).append("/100");
@@ -144,35 +314,159 @@ public class GradingAgent extends LLMAgent {
         return feedback.toString();
     }
     
-    private String generateGradingSummary(List<GradingResult> results) {
+    private String generateGradingSummary(List<GradingResult> results, GradingProgress progress,
+                                          List<int[]> duplicateClusters) {
         StringBuilder summary = new StringBuilder();
         
-        summary.append("GRADING SUMMARY\n");
-        summary.append("===============\n\n");
+        summary.append(SUMMARY_HEADER);
         
         // Individual results
         for (GradingResult result : results) {
-            summary.append("Student: ").append(result.getStudentName()).append("\n");
-            summary.append("Score: ").append(result.getScore()).append("/100\n");
-            summary.append("Feedback: ").append(result.getFeedback()).append("\n\n");
+            summary.append(formatResult(result));
         }
         
-        // Class statistics
-        double averageScore = results.stream()
-                .mapToInt(GradingResult::getScore)
-                .average()
-                .orElse(0.0);
-        
-        summary.append("CLASS STATISTICS:\n");
-        summary.append("Average Score: ").append(String.format("%.1f", averageScore)).append("/100\n");
-        summary.append("Total Students: ").append(results.size()).append("\n");
+        // Class statistics, already aggregated while grading
+        summary.append(formatClassStatistics(progress.getAverageScore(), progress.getCount(),
+            progress.getHighScoreCount()));
         
-        long highScores = results.stream().filter(r -> r.getScore() >= 80).count();
-        summary.append("Students with 80+ scores: ").append(highScores).append("\n");
+        if (!duplicateClusters.isEmpty()) {
+            summary.append("\nPOSSIBLE DUPLICATE ANSWERS (").append(duplicateClusters.size()).append(" groups):\n");
+            for (int c = 0; c < Math.min(duplicateClusters.size(), MAX_REPORTED_CLUSTERS); c++) {
+                int[] cluster = duplicateClusters.get(c);
+                summary.append("- ");
+                for (int i = 0; i < cluster.length; i++) {
+                    if (i > 0) summary.append(", ");
+                    summary.append(results.get(cluster[i]).getStudentName());
+                }
+                summary.append("\n");
+            }
+            if (duplicateClusters.size() > MAX_REPORTED_CLUSTERS) {
+                summary.append("... and ").append(duplicateClusters.size() - MAX_REPORTED_CLUSTERS)
+                       .append(" more groups\n");
+            }
+        }
         
         return summary.toString();
     }
     
+    private static String formatResult(GradingResult result) {
+        return "Student: " + result.getStudentName() + "\n"
+            + "Score: " + result.getScore() + "/100\n"
+            + "Feedback: " + result.getFeedback() + "\n\n";
+    }
+    
+    private static String formatClassStatistics(double averageScore, long totalStudents, long highScores) {
+        return "CLASS STATISTICS:\n"
+            + "Average Score: " + String.format("%.1f", averageScore) + "/100\n"
+            + "Total Students: " + totalStudents + "\n"
+            + "Students with 80+ scores: " + highScores + "\n";
+    }
+    
+    /**
+     * Everything one batch is graded with and into. Each index of the
+     * results array is written by exactly one grading thread.
+     */
+    private final class GradingBatch {
+        private final Rubric rubric;
+        private final StudentResponse[] responses;
+        private final GradingResult[] results;
+        private final GradingProgress progress;
+        private final NearDuplicateDetector duplicateDetector;
+        private final Deadline deadline;
+        
+        GradingBatch(Rubric rubric, StudentResponse[] responses, Deadline deadline) {
+            this.rubric = rubric;
+            this.deadline = deadline;
+            this.responses = responses;
+            this.results = new GradingResult[responses.length];
+            this.progress = new GradingProgress(responses.length);
+            this.duplicateDetector = new NearDuplicateDetector(responses.length);
+        }
+        
+        void gradeRange(int from, int to) {
+            for (int i = from; i < to; i++) {
+                deadline.check();
+                GradingResult result = gradeResponse(rubric, responses[i]);
+                results[i] = result;
+                progress.record(result.getScore());
+                duplicateDetector.add(i, responses[i].getAnswer());
+            }
+        }
+        
+        List<GradingResult> getResults() {
+            return Arrays.asList(results);
+        }
+    }
+    
+    /**
+     * Grades batch[from, to), halving the range until it is small enough to
+     * grade directly.
+     */
+    private static final class GradeRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final GradingBatch batch;
+        private final int from;
+        private final int to;
+        
+        GradeRangeTask(GradingBatch batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= RESPONSES_PER_TASK) {
+                batch.gradeRange(from, to);
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            invokeAll(new GradeRangeTask(batch, from, middle),
+                      new GradeRangeTask(batch, middle, to));
+        }
+    }
+    
+    /**
+     * Turns Student:/Answer: lines into responses one block at a time. A
+     * block is complete when the next Student: line arrives or input ends.
+     */
+    private static final class ResponseAssembler {
+        private String currentStudent;
+        private StringBuilder currentAnswer = new StringBuilder();
+        
+        /**
+         * Consumes one line; returns the previous student's response if this line completed it.
+         */
+        StudentResponse accept(String line) {
+            StudentResponse completed = null;
+            if (line.startsWith("Student:")) {
+                if (currentStudent != null) {
+                    completed = new StudentResponse(currentStudent, currentAnswer.toString().trim());
+                }
+                currentStudent = line.substring(8).trim();
+                currentAnswer = new StringBuilder();
+            } else if (line.startsWith("Answer:")) {
+                currentAnswer.append(line.substring(7).trim());
+            } else if (!line.trim().isEmpty() && currentStudent != null) {
+                currentAnswer.append(" ").append(line.trim());
+            }
+            return completed;
+        }
+        
+        /**
+         * Returns the last student's response at end of input, if any.
+         */
+        StudentResponse finish() {
+            StudentResponse completed = currentStudent == null
+                ? null : new StudentResponse(currentStudent, currentAnswer.toString().trim());
+            currentStudent = null;
+            currentAnswer = new StringBuilder();
+            return completed;
+        }
+    }
+    
     // Inner classes for data structures
     private static class StudentResponse {
         private final String studentName;
@@ -1,5 +1,8 @@
 package com.classroom.agents;
 
+import com.classroom.concurrent.Deadline;
+import com.classroom.concurrent.DeadlineExceededException;
+import com.classroom.observability.MetricsService;
 import com.google.adk.agents.Agent;
 import com.google.adk.agents.LLMAgent;
 import com.google.adk.core.AgentRuntime;
@@ -7,7 +10,15 @@ import com.google.adk.core.SessionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -16,48 +27,171 @@ import java.util.concurrent.TimeUnit;
 @Agent(name = "LessonPlanAgent", description = "Generates comprehensive lesson plans")
 public class LessonPlanAgent extends LLMAgent {
     private static final Logger logger = LoggerFactory.getLogger(LessonPlanAgent.class);
+    private static final long GENERATION_DELAY_MS = 2000; // Simulated processing time for complex content
+    private static final long GENERATION_TIMEOUT_SECONDS = 30;
+    private static final int CACHE_MAX_ENTRIES = 256;
+    private static final long CACHE_MAX_BYTES = 4L << 20; // 4 MB
+    private static final long CACHE_TTL_HOURS = 12;
+    
+    private final Executor executor;
+    private final LessonPlanCache cache;
     
     public LessonPlanAgent(AgentRuntime runtime, SessionService sessionService) {
+        this(runtime, sessionService, AgentExecutors.defaultExecutor());
+    }
+    
+    /**
+     * @param executor generates plans requested through {@link #generateLessonPlan}
+     */
+    public LessonPlanAgent(AgentRuntime runtime, SessionService sessionService, Executor executor) {
+        this(runtime, sessionService, executor, new LessonPlanCache(
+            CACHE_MAX_ENTRIES, CACHE_MAX_BYTES, CACHE_TTL_HOURS, TimeUnit.HOURS, MetricsService.getInstance()));
+    }
+    
+    /**
+     * @param cache generated plans by subject, grade level and topic; repeated triples skip generation
+     */
+    public LessonPlanAgent(AgentRuntime runtime, SessionService sessionService, Executor executor,
+                           LessonPlanCache cache) {
         super(runtime, sessionService);
+        this.executor = executor;
+        this.cache = cache;
         logger.info("LessonPlanAgent initialized");
     }
     
     public String generateLessonPlan(String request) {
-        logger.info("Generating lesson plan for request: {}", request);
-        
-        try {
-            // Extract subject and grade level from request
-            String subject = extractSubject(request);
-            String gradeLevel = extractGradeLevel(request);
-            String topic = extractTopic(request);
-            
-            // Use long-running operation for complex lesson plans
-            CompletableFuture<String> lessonPlanFuture = CompletableFuture.supplyAsync(() -> {
-                return generateDetailedLessonPlan(subject, gradeLevel, topic);
+        return generateLessonPlan(RequestAnalyzer.getInstance().analyze(request));
+    }
+    
+    public String generateLessonPlan(ParsedRequest request) {
+        return generateLessonPlanAsync(request, executor).join();
+    }
+    
+    /**
+     * Generates the lesson plan on the given executor. The simulated
+     * generation delay is a scheduled start rather than a sleeping thread,
+     * and the timeout is applied to the future, so no thread blocks while
+     * the plan is pending. Failures complete the future with an error message.
+     */
+    public CompletableFuture<String> generateLessonPlanAsync(ParsedRequest request, Executor executor) {
+        return generateLessonPlanAsync(request, executor, Deadline.none());
+    }
+    
+    /**
+     * Like {@link #generateLessonPlanAsync(ParsedRequest, Executor)}, giving
+     * up once the deadline expires: the timeout is shortened to the time
+     * left, and generation is skipped if the deadline passes during the delay.
+     * Expiry completes the future with a {@link DeadlineExceededException}
+     * rather than a message, so callers sharing the result can tell it
+     * apart from a generated plan.
+     */
+    public CompletableFuture<String> generateLessonPlanAsync(ParsedRequest request, Executor executor, Deadline deadline) {
+        logger.info("Generating lesson plan for request: {}", request.getRequest());
+        
+        // Subject, grade level and topic were read when the request was parsed
+        ParsedRequest.Context context = request.getLessonPlanContext();
+        String subject = context.getSubject();
+        String gradeLevel = context.getGradeLevel();
+        String topic = context.getTopic();
+        
+        // The plan depends only on the triple, so a cached one is returned without generating
+        String cached = cache.get(subject, gradeLevel, topic);
+        if (cached != null) {
+            logger.info("Serving cached lesson plan for {} - {} - {}", subject, gradeLevel, topic);
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        // Simulate long-running operation with timeout
+        long timeoutMs = Math.min(TimeUnit.SECONDS.toMillis(GENERATION_TIMEOUT_SECONDS), deadline.remainingMillis());
+        Executor delayed = CompletableFuture.delayedExecutor(GENERATION_DELAY_MS, TimeUnit.MILLISECONDS, executor);
+        return CompletableFuture.supplyAsync(() -> {
+                deadline.check();
+                String lessonPlan = generateDetailedLessonPlan(subject, gradeLevel, topic);
+                cache.put(subject, gradeLevel, topic, lessonPlan);
+                return lessonPlan;
+            }, delayed)
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .handle((lessonPlan, e) -> {
+                if (e != null) {
+                    if (deadline.isExpired()) {
+                        logger.warn("Lesson plan generation abandoned: request deadline exceeded");
+                        throw new DeadlineExceededException("Lesson plan generation stopped at the request deadline");
+                    }
+                    logger.error("Error generating lesson plan", e);
+                    return "Error generating lesson plan. Please provide more specific details about the subject, grade level, and topic.";
+                }
+                logger.info("Lesson plan generated successfully");
+                return lessonPlan;
             });
-            
-            // Simulate long-running operation with timeout
-            String lessonPlan = lessonPlanFuture.get(30, TimeUnit.SECONDS);
-            
-            logger.info("Lesson plan generated successfully");
-            return lessonPlan;
-            
-        } catch (Exception e) {
-            logger.error("Error generating lesson plan", e);
-            return "Error generating lesson plan. Please provide more specific details about the subject, grade level, and topic.";
+    }
+    
+    /**
+     * Preloads the cache from stored lesson plans, oldest first, e.g. the
+     * plans kept in classroom memory. Every served lesson plan request
+     * stores a copy, so the triples (subject, grade level, topic) with the
+     * most stored copies are the most requested; they are loaded first,
+     * most recently stored first among equals, each with its latest plan.
+     * Plans without that header are ignored.
+     *
+     * @return number of plans preloaded
+     */
+    public int warmUp(List<String> storedLessonPlans, int maxPlans) {
+        Map<List<String>, String> latest = new LinkedHashMap<>();
+        Map<List<String>, Integer> copies = new HashMap<>();
+        for (String lessonPlan : storedLessonPlans) {
+            List<String> triple = readTriple(lessonPlan);
+            if (triple != null) {
+                // Re-inserting moves the triple to the end, so iteration runs oldest to newest
+                latest.remove(triple);
+                latest.put(triple, lessonPlan);
+                copies.merge(triple, 1, Integer::sum);
+            }
         }
+        
+        List<List<String>> triples = new ArrayList<>(latest.keySet());
+        Collections.reverse(triples);
+        // Stable sort: equally requested triples stay newest first
+        triples.sort(Comparator.comparingInt((List<String> triple) -> copies.get(triple)).reversed());
+        int loaded = Math.min(maxPlans, triples.size());
+        for (int i = 0; i < loaded; i++) {
+            List<String> triple = triples.get(i);
+            cache.put(triple.get(0), triple.get(1), triple.get(2), latest.get(triple));
+        }
+        
+        logger.info("Preloaded {} of {} distinct lesson plans from {} stored plans",
+            loaded, latest.size(), storedLessonPlans.size());
+        return loaded;
+    }
+    
+    public LessonPlanCache getCache() {
+        return cache;
+    }
+    
+    /**
+     * Subject, grade level and topic from a generated plan's header, or null.
+     */
+    private static List<String> readTriple(String lessonPlan) {
+        String subject = null;
+        String gradeLevel = null;
+        String topic = null;
+        for (String line : lessonPlan.split("\n", 8)) {
+            if (line.startsWith("Subject: ")) {
+                subject = line.substring("Subject: ".length());
+            } else if (line.startsWith("Grade Level: ")) {
+                gradeLevel = line.substring("Grade Level: ".length());
+            } else if (line.startsWith("Topic: ")) {
+                topic = line.substring("Topic: ".length());
+            }
+        }
+        if (subject == null || gradeLevel == null || topic == null) {
+            return null;
+        }
+        return List.of(subject, gradeLevel, topic);
     }
     
     private String generateDetailedLessonPlan(String subject, String gradeLevel, String topic) {
         logger.info("Generating detailed lesson plan for {} - {} - {}", subject, gradeLevel, topic);
         
-        // Simulate processing time for complex content
-        try {
-            Thread.sleep(2000); // Simulate long-running operation
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
         StringBuilder lessonPlan = new StringBuilder();
         
         lessonPlan.append("LESSON PLAN\n");
@@ -109,48 +243,4 @@ public class LessonPlanAgent extends LLMAgent {
         
         return lessonPlan.toString();
     }
-    
-    private String extractSubject(String request) {
-        String lowerRequest = request.toLowerCase();
-        if (lowerRequest.contains("math")) return "Mathematics";
-        if (lowerRequest.contains("science")) return "Science";
-        if (lowerRequest.contains("english")) return "English Language Arts";
-        if (lowerRequest.contains("history")) return "History";
-        if (lowerRequest.contains("social")) return "Social Studies";
-        return "General Subject";
-    }
-    
-    private String extractGradeLevel(String request) {
-        String lowerRequest = request.toLowerCase();
-        if (lowerRequest.contains("kindergarten") || lowerRequest.contains("k")) return "Kindergarten";
-        if (lowerRequest.contains("1st") || lowerRequest.contains("first")) return "1st Grade";
-        if (lowerRequest.contains("2nd") || lowerRequest.contains("second")) return "2nd Grade";
-        if (lowerRequest.contains("3rd") || lowerRequest.contains("third")) return "3rd Grade";
-        if (lowerRequest.contains("4th") || lowerRequest.contains("fourth")) return "4th Grade";
-        if (lowerRequest.contains("5th") || lowerRequest.contains("fifth")) return "5th Grade";
-        if (lowerRequest.contains("6th") || lowerRequest.contains("sixth")) return "6th Grade";
-        if (lowerRequest.contains("middle")) return "Middle School";
-        if (lowerRequest.contains("high")) return "High School";
-        return "Elementary";
-    }
-    
-    private String extractTopic(String request) {
-        String lowerRequest = request.toLowerCase();
-        // Math topics
-        if (lowerRequest.contains("fraction")) return "Fractions";
-        if (lowerRequest.contains("multiplication")) return "Multiplication";
-        if (lowerRequest.contains("division")) return "Division";
-        if (lowerRequest.contains("geometry")) return "Geometry";
-        if (lowerRequest.contains("algebra")) return "Algebra";
-        // Science topics
-        if (lowerRequest.contains("photosynthesis")) return "Photosynthesis";
-        if (lowerRequest.contains("ecosystem")) return "Ecosystems";
-        if (lowerRequest.contains("cell")) return "Cell Biology";
-        if (lowerRequest.contains("gravity")) return "Gravity and Forces";
-        if (lowerRequest.contains("weather")) return "Weather Systems";
-        // English topics
-        if (lowerRequest.contains("reading")) return "Reading Comprehension";
-        if (lowerRequest.contains("writing")) return "Writing Skills";
-        return "Core Concepts";
-    }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.classroom.agents;
+
+import com.classroom.cache.BoundedLruCache;
+import com.classroom.observability.MetricsService;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded LRU cache of generated lesson plans keyed by subject, grade level
+ * and topic, which fully determine a plan's content. Entries expire after a
+ * fixed time to live; see {@link BoundedLruCache} for eviction.
+ *
+ * Hits, misses, evictions and expirations are counted as
+ * {@code lesson_plan_cache_*} in {@link MetricsService}.
+ */
+public class LessonPlanCache {
+    private final BoundedLruCache<Key, String> entries;
+
+    public LessonPlanCache(int maxEntries, long maxBytes, long timeToLive, TimeUnit unit, MetricsService metricsService) {
+        if (maxEntries < 1 || maxBytes < 1 || timeToLive <= 0) {
+            throw new IllegalArgumentException("Lesson plan cache limits and time to live must be positive");
+        }
+        this.entries = new BoundedLruCache<>("lesson_plan_cache", maxEntries, maxBytes, timeToLive, unit,
+            LessonPlanCache::weigh, metricsService);
+    }
+
+    /**
+     * Cached plan for the triple, or null if there is none or it has expired.
+     */
+    public String get(String subject, String gradeLevel, String topic) {
+        return entries.get(new Key(subject, gradeLevel, topic));
+    }
+
+    public void put(String subject, String gradeLevel, String topic, String lessonPlan) {
+        entries.put(new Key(subject, gradeLevel, topic), lessonPlan);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getCurrentBytes() {
+        return entries.getCurrentBytes();
+    }
+
+    private static long weigh(Key key, String lessonPlan) {
+        return 2L * (key.subject.length() + key.gradeLevel.length() + key.topic.length() + lessonPlan.length());
+    }
+
+    private static final class Key {
+        private final String subject;
+        private final String gradeLevel;
+        private final String topic;
+
+        Key(String subject, String gradeLevel, String topic) {
+            this.subject = subject;
+            this.gradeLevel = gradeLevel;
+            this.topic = topic;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return subject.equals(key.subject) && gradeLevel.equals(key.gradeLevel) && topic.equals(key.topic);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(subject, gradeLevel, topic);
+        }
+
+        @Override
+        public String toString() {
+            return subject + " - " + gradeLevel + " - " + topic;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.classroom.agents;
 
+import com.classroom.concurrent.Deadline;
 import com.classroom.memory.ClassroomMemoryService;
+import com.classroom.memory.GradingResultStore;
 import com.classroom.observability.MetricsService;
+import com.classroom.tools.StudentPerformanceTool;
 import com.google.adk.agents.Agent;
 import com.google.adk.agents.SequentialAgent;
 import com.google.adk.core.AgentRuntime;
@@ -11,8 +14,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Orchestrator Agent - Top-level coordinator for the classroom assistant system
@@ -20,140 +34,332 @@ import java.util.concurrent.CompletableFuture;
 @Agent(name = "OrchestratorAgent", description = "Coordinates classroom assistant operations")
 public class OrchestratorAgent extends SequentialAgent {
     private static final Logger logger = LoggerFactory.getLogger(OrchestratorAgent.class);
+    private static final String DEFAULT_SCORES_PATH = "sample-data/student-scores.json";
+    private static final int DEFAULT_RANKED_STUDENTS = 10;
+    private static final String DEADLINE_EXCEEDED_MESSAGE =
+        "The request did not finish within its deadline and was cancelled. Please try again or narrow the request.";
     
     private final LessonPlanAgent lessonPlanAgent;
     private final WorksheetAgent worksheetAgent;
     private final GradingAgent gradingAgent;
+    private final StudentPerformanceTool performanceTool;
     private final ClassroomMemoryService memoryService;
     private final MetricsService metricsService;
+    private final RequestAnalyzer requestAnalyzer;
+    private final Executor executor;
+    private final SingleFlight<String, String> lessonRequests;
     
     public OrchestratorAgent(AgentRuntime runtime, SessionService sessionService, 
                            ClassroomMemoryService memoryService, ToolRegistry toolRegistry) {
+        this(runtime, sessionService, memoryService, toolRegistry, AgentExecutors.defaultExecutor());
+    }
+    
+    /**
+     * @param executor runs {@link #processAsync} work, keeping it off the common ForkJoinPool
+     */
+    public OrchestratorAgent(AgentRuntime runtime, SessionService sessionService, 
+                           ClassroomMemoryService memoryService, ToolRegistry toolRegistry,
+                           Executor executor) {
+        this(runtime, sessionService, memoryService, toolRegistry, executor, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * @param gradingPool grades large batches of student responses; see
+     *                    {@link GradingAgent#GradingAgent(AgentRuntime, SessionService, ClassroomMemoryService, ForkJoinPool)}
+     */
+    public OrchestratorAgent(AgentRuntime runtime, SessionService sessionService, 
+                           ClassroomMemoryService memoryService, ToolRegistry toolRegistry,
+                           Executor executor, ForkJoinPool gradingPool) {
         super(runtime, sessionService);
         this.memoryService = memoryService;
+        this.executor = executor;
+        this.lessonRequests = new SingleFlight<>("lesson_requests");
         this.metricsService = MetricsService.getInstance();
+        this.requestAnalyzer = RequestAnalyzer.getInstance();
         
         // Initialize sub-agents
-        this.lessonPlanAgent = new LessonPlanAgent(runtime, sessionService);
+        this.lessonPlanAgent = new LessonPlanAgent(runtime, sessionService, executor);
         this.worksheetAgent = new WorksheetAgent(runtime, sessionService, toolRegistry);
-        this.gradingAgent = new GradingAgent(runtime, sessionService, memoryService);
+        this.gradingAgent = new GradingAgent(runtime, sessionService, memoryService, gradingPool);
+        
+        // Shared so repeated analyses of the same file hit its result cache
+        this.performanceTool = new StudentPerformanceTool();
         
         logger.info("OrchestratorAgent initialized with sub-agents");
     }
     
     public String process(String request) {
+        return process(request, Deadline.none());
+    }
+    
+    /**
+     * Processes a request, cancelling its work once the deadline expires.
+     * Agents and tools check the deadline as they go, and the calling
+     * thread is interrupted while it runs the request.
+     */
+    public String process(String request, Deadline deadline) {
         logger.info("Orchestrator processing request");
         
         try {
-            // Analyze request type
-            RequestType requestType = analyzeRequest(request);
-            logger.info("Detected request type: {}", requestType);
-            
-            switch (requestType) {
+            return finish(processWithin(analyzeRequest(request), deadline), deadline);
+        } catch (Exception e) {
+            logger.error("Error in orchestrator processing", e);
+            return "I encountered an error processing your request. Please try again.";
+        }
+    }
+    
+    /**
+     * Processes a request on this orchestrator's executor. Lesson plan
+     * generation is chained as asynchronous stages, so no executor thread
+     * sits blocked waiting for it.
+     */
+    public CompletableFuture<String> processAsync(String request) {
+        return processAsync(request, Deadline.none());
+    }
+    
+    /**
+     * Like {@link #processAsync(String)}; the future completes with a
+     * deadline message as soon as the deadline expires, and work still
+     * queued on the executor by then is skipped.
+     */
+    public CompletableFuture<String> processAsync(String request, Deadline deadline) {
+        logger.info("Orchestrator processing request asynchronously");
+        
+        try {
+            ParsedRequest parsed = analyzeRequest(request);
+            CompletableFuture<String> response;
+            switch (parsed.getType()) {
                 case LESSON_PLAN:
-                    return handleLessonPlanRequest(request);
-                case WORKSHEET:
-                    return handleWorksheetRequest(request);
-                case GRADING:
-                    return handleGradingRequest(request);
-                case PERFORMANCE_ANALYSIS:
-                    return handlePerformanceAnalysisRequest(request);
-                case MEMORY_SUMMARY:
-                    return handleMemorySummaryRequest(request);
-                case METRICS_REPORT:
-                    return handleMetricsReportRequest(request);
+                    response = handleLessonPlanRequestAsync(parsed, deadline);
+                    break;
                 case FULL_PACKAGE:
-                    return handleFullPackageRequest(request);
+                    response = handleFullPackageRequestAsync(parsed, deadline);
+                    break;
                 default:
-                    return "I can help you with lesson plans, worksheets, grading, performance analysis, memory summary or metrics report. Please specify what you need.";
+                    response = CompletableFuture.supplyAsync(() -> processWithin(parsed, deadline), executor);
+                    break;
             }
+            return withinDeadline(response, deadline).thenApply(text -> finish(text, deadline));
         } catch (Exception e) {
             logger.error("Error in orchestrator processing", e);
-            return "I encountered an error processing your request. Please try again.";
+            return CompletableFuture.completedFuture("I encountered an error processing your request. Please try again.");
         }
     }
     
-    private RequestType analyzeRequest(String request) {
-        String lowerRequest = request.toLowerCase();
+    /**
+     * Processes many requests together and returns their responses in input
+     * order. Each request is classified once and requests are grouped by
+     * type. Every request is started at once: lesson plan and full package
+     * requests as asynchronous stages, all others as their own executor
+     * task, so a batch is spread over the whole executor rather than one
+     * thread per group. Throughput and latency are recorded per batch.
+     */
+    public List<String> processBatch(List<String> requests) {
+        return processBatch(requests, Deadline.none());
+    }
+    
+    /**
+     * Like {@link #processBatch(List)}, with one deadline for the whole
+     * batch. Requests still unfinished when it expires get the deadline
+     * message; requests not yet started are not run at all.
+     */
+    public List<String> processBatch(List<String> requests, Deadline deadline) {
+        logger.info("Orchestrator processing batch of {} requests", requests.size());
         
-        // Check for memory summary requests
-        if (lowerRequest.contains("memory") && lowerRequest.contains("summary")) {
-            return RequestType.MEMORY_SUMMARY;
+        BatchRun batch = new BatchRun(requests.size());
+        Map<RequestType, List<ParsedRequest>> groups = new EnumMap<>(RequestType.class);
+        Map<RequestType, List<Integer>> positions = new EnumMap<>(RequestType.class);
+        for (int i = 0; i < requests.size(); i++) {
+            ParsedRequest parsed = requestAnalyzer.analyze(requests.get(i));
+            groups.computeIfAbsent(parsed.getType(), type -> new ArrayList<>()).add(parsed);
+            positions.computeIfAbsent(parsed.getType(), type -> new ArrayList<>()).add(i);
         }
-        // Check for metrics report requests
-        else if (lowerRequest.contains("metrics") && lowerRequest.contains("report")) {
-            return RequestType.METRICS_REPORT;
+        
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (Map.Entry<RequestType, List<ParsedRequest>> group : groups.entrySet()) {
+            logger.info("Batch group {}: {} requests", group.getKey(), group.getValue().size());
+            running.add(processGroup(group.getKey(), group.getValue(), positions.get(group.getKey()), batch, deadline));
         }
-        // Check for performance analysis requests
-        else if (lowerRequest.contains("analyze") && (lowerRequest.contains("performance") || lowerRequest.contains("student-scores"))) {
-            return RequestType.PERFORMANCE_ANALYSIS;
+        CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])).join();
+        
+        batch.report(metricsService);
+        return Arrays.asList(batch.responses);
+    }
+    
+    private CompletableFuture<Void> processGroup(RequestType type, List<ParsedRequest> requests,
+                                                 List<Integer> positions, BatchRun batch, Deadline deadline) {
+        CompletableFuture<?>[] started = new CompletableFuture<?>[requests.size()];
+        for (int i = 0; i < started.length; i++) {
+            int position = positions.get(i);
+            ParsedRequest parsed = requests.get(i);
+            CompletableFuture<String> response;
+            if (type == RequestType.LESSON_PLAN) {
+                response = handleLessonPlanRequestAsync(parsed, deadline);
+            } else if (type == RequestType.FULL_PACKAGE) {
+                response = handleFullPackageRequestAsync(parsed, deadline);
+            } else {
+                response = CompletableFuture.supplyAsync(() -> processWithin(parsed, deadline), executor);
+            }
+            started[i] = withinDeadline(response, deadline)
+                .thenAccept(text -> batch.complete(position, finish(text, deadline)));
         }
-        // Check for grading requests - be more specific
-        else if (lowerRequest.contains("grading") || lowerRequest.contains("feedback") 
-            || lowerRequest.contains("grade these") || lowerRequest.contains("grade student")) {
-            return RequestType.GRADING;
-        } else if ((lowerRequest.contains("worksheet") || lowerRequest.contains("quiz")) && lowerRequest.contains("lesson")) {
-            return RequestType.FULL_PACKAGE;
-        } else if (lowerRequest.contains("worksheet") || lowerRequest.contains("quiz")) {
-            return RequestType.WORKSHEET;
-        } else if (lowerRequest.contains("lesson")) {
-            return RequestType.LESSON_PLAN;
+        return CompletableFuture.allOf(started);
+    }
+    
+    /**
+     * Preloads the lesson plan cache from the plans stored in memory, most
+     * often stored (and so most requested) first.
+     *
+     * @return number of plans preloaded
+     */
+    public int warmUpLessonPlans(int maxPlans) {
+        return lessonPlanAgent.warmUp(memoryService.getAllStoredLessonPlans(), maxPlans);
+    }
+    
+    private ParsedRequest analyzeRequest(String request) {
+        // Parse type, file path and lesson details in one pass over the request
+        ParsedRequest parsed = requestAnalyzer.analyze(request);
+        logger.info("Detected request type: {}", parsed.getType());
+        return parsed;
+    }
+    
+    /**
+     * Runs a parsed request on the calling thread, which is interrupted if
+     * the deadline expires meanwhile. Returns the deadline message without
+     * doing any work if it has already expired.
+     */
+    private String processWithin(ParsedRequest parsed, Deadline deadline) {
+        try {
+            return deadline.runInterruptibly(() -> process(parsed, deadline));
+        } catch (CancellationException e) {
+            return DEADLINE_EXCEEDED_MESSAGE;
         }
-        
-        return RequestType.UNKNOWN; // Default to unknown request
     }
     
-    private String handleLessonPlanRequest(String request) {
-        logger.info("Handling lesson plan request");
-        
-        CompletableFuture<String> lessonPlanFuture = CompletableFuture.supplyAsync(() -> {
-            return lessonPlanAgent.generateLessonPlan(request);
-        });
+    private String process(ParsedRequest parsed, Deadline deadline) {
+        String request = parsed.getRequest();
         
         try {
-            String lessonPlan = lessonPlanFuture.get();
-            memoryService.storeLessonPlan(lessonPlan);
-            metricsService.recordLessonPlanGenerated();
-            return lessonPlan;
+            switch (parsed.getType()) {
+                case LESSON_PLAN:
+                    return deadline.bind(handleLessonPlanRequestAsync(parsed, deadline)).join();
+                case WORKSHEET:
+                    return handleWorksheetRequest(parsed, deadline);
+                case GRADING:
+                    return handleGradingRequest(request, deadline);
+                case GRADE_AND_ANALYZE:
+                    return handleGradeAndAnalyzeRequest(request, deadline);
+                case GRADING_PROGRESS:
+                    return gradingAgent.getGradingProgress();
+                case PERFORMANCE_ANALYSIS:
+                    return handlePerformanceAnalysisRequest(parsed, deadline);
+                case TOP_STUDENTS:
+                    return handleRankedStudentsRequest(parsed, RequestAnalyzer.TOP_STUDENTS_PATTERN, true, deadline);
+                case BOTTOM_STUDENTS:
+                    return handleRankedStudentsRequest(parsed, RequestAnalyzer.BOTTOM_STUDENTS_PATTERN, false, deadline);
+                case PERCENTILE_RANK:
+                    return handlePercentileRankRequest(parsed, deadline);
+                case MEMORY_SUMMARY:
+                    return handleMemorySummaryRequest(request);
+                case METRICS_REPORT:
+                    return handleMetricsReportRequest(request);
+                case FULL_PACKAGE:
+                    return deadline.bind(handleFullPackageRequestAsync(parsed, deadline)).join();
+                default:
+                    return "I can help you with lesson plans, worksheets, grading, grading progress, grade and analyze, performance analysis, top or bottom students, percentile ranks, memory summary or metrics report. Please specify what you need.";
+            }
         } catch (Exception e) {
-            logger.error("Error generating lesson plan", e);
-            return "Error generating lesson plan. Please try again.";
+            if (isCancellation(e) && deadline.isExpired()) {
+                return DEADLINE_EXCEEDED_MESSAGE;
+            }
+            logger.error("Error in orchestrator processing", e);
+            return "I encountered an error processing your request. Please try again.";
         }
     }
     
-    private String handleWorksheetRequest(String request) {
+    private CompletableFuture<String> handleLessonPlanRequestAsync(ParsedRequest request, Deadline deadline) {
+        logger.info("Handling lesson plan request");
+        
+        // Identical lesson plans requested concurrently are generated and stored once
+        return coalesced(lessonKey(request), deadline, () -> generateAndStoreLessonPlan(request, deadline));
+    }
+    
+    private CompletableFuture<String> generateAndStoreLessonPlan(ParsedRequest request, Deadline deadline) {
+        return lessonPlanAgent.generateLessonPlanAsync(request, executor, deadline)
+            .thenApply(lessonPlan -> {
+                // Nothing is stored for a request that has already been abandoned
+                deadline.check();
+                memoryService.storeLessonPlan(lessonPlan);
+                metricsService.recordLessonPlanGenerated();
+                return lessonPlan;
+            })
+            .exceptionally(e -> {
+                if (isCancellation(e)) {
+                    // Left to each caller to judge against its own deadline
+                    throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                }
+                logger.error("Error generating lesson plan", e);
+                return "Error generating lesson plan. Please try again.";
+            });
+    }
+    
+    private String handleWorksheetRequest(ParsedRequest request, Deadline deadline) {
         logger.info("Handling worksheet request");
         
-        String worksheet = worksheetAgent.generateWorksheet(request);
+        String worksheet = worksheetAgent.generateWorksheet(request, deadline);
+        deadline.check();
         memoryService.storeWorksheet(worksheet);
         metricsService.recordWorksheetGenerated();
         return worksheet;
     }
     
-    private String handleGradingRequest(String request) {
+    private String handleGradingRequest(String request, Deadline deadline) {
+        return handleGradingRequest(request, deadline, stored -> { });
+    }
+    
+    private String handleGradingRequest(String request, Deadline deadline, Consumer<GradingResultStore> storedResults) {
         logger.info("Handling grading request");
         
         long startTime = System.currentTimeMillis();
-        String result = gradingAgent.processGrading(request);
+        String result = gradingAgent.processGrading(request, deadline, storedResults);
         long duration = System.currentTimeMillis() - startTime;
         
         metricsService.recordGradingCompleted(duration);
         return result;
     }
     
-    private String handlePerformanceAnalysisRequest(String request) {
+    private String handleGradeAndAnalyzeRequest(String request, Deadline deadline) {
+        logger.info("Handling grade and analyze request");
+        
+        // Analyse the batch this request stored in memory; its scores never go through text
+        List<GradingResultStore> graded = new ArrayList<>(1);
+        String gradingSummary = handleGradingRequest(request, deadline, graded::add);
+        if (graded.isEmpty()) {
+            return gradingSummary;
+        }
+        deadline.check();
+        return gradingSummary + "\n\n" + performanceTool.analyzeGradingResults(graded.get(0));
+    }
+    
+    private String handlePerformanceAnalysisRequest(ParsedRequest request, Deadline deadline) {
         logger.info("Handling performance analysis request");
         
         try {
             // Extract file path from request
-            String filePath = extractFilePath(request);
+            String filePath = request.getFilePath();
             if (filePath == null) {
-                filePath = "sample-data/student-scores.json"; // Default path
+                filePath = DEFAULT_SCORES_PATH;
             }
             
-            // Use StudentPerformanceTool from the worksheet agent's tool registry
-            com.classroom.tools.StudentPerformanceTool performanceTool = new com.classroom.tools.StudentPerformanceTool();
-            String analysis = performanceTool.analyzePerformance(filePath);
+            String groupField = extractGroupField(request.getRequest());
+            String analysis;
+            if (StudentPerformanceTool.isMultiFileTarget(filePath)) {
+                analysis = performanceTool.analyzeDirectory(filePath, deadline);
+            } else if (groupField != null) {
+                analysis = performanceTool.analyzePerformanceByGroup(filePath, groupField, deadline);
+            } else {
+                analysis = performanceTool.analyzePerformance(filePath, deadline);
+            }
             
             return analysis;
             
@@ -163,6 +369,55 @@ public class OrchestratorAgent extends SequentialAgent {
         }
     }
     
+    private String handleRankedStudentsRequest(ParsedRequest request, Pattern pattern, boolean highest,
+                                               Deadline deadline) {
+        logger.info("Handling {} students request", highest ? "top" : "bottom");
+        
+        try {
+            Matcher matcher = pattern.matcher(request.getRequest());
+            int k = matcher.find() && matcher.group(1) != null
+                ? Integer.parseInt(matcher.group(1)) : DEFAULT_RANKED_STUDENTS;
+            
+            String filePath = request.getFilePath();
+            if (filePath == null) {
+                filePath = DEFAULT_SCORES_PATH;
+            }
+            
+            return highest
+                ? performanceTool.topStudents(filePath, k, deadline)
+                : performanceTool.bottomStudents(filePath, k, deadline);
+            
+        } catch (NumberFormatException e) {
+            return "Please ask for a smaller number of students.";
+        } catch (Exception e) {
+            logger.error("Error ranking students", e);
+            return "Error analyzing performance data. Please check the file path and format.";
+        }
+    }
+    
+    private String handlePercentileRankRequest(ParsedRequest request, Deadline deadline) {
+        logger.info("Handling percentile rank request");
+        
+        try {
+            Matcher matcher = RequestAnalyzer.PERCENTILE_RANK_PATTERN.matcher(request.getRequest());
+            if (!matcher.find()) {
+                return "Please name the student, e.g. \"What percentile is Bob Smith in?\"";
+            }
+            String studentName = matcher.group(1).trim();
+            
+            String filePath = request.getFilePath();
+            if (filePath == null) {
+                filePath = DEFAULT_SCORES_PATH;
+            }
+            
+            return performanceTool.percentileRank(filePath, studentName, deadline);
+            
+        } catch (Exception e) {
+            logger.error("Error computing percentile rank", e);
+            return "Error analyzing performance data. Please check the file path and format.";
+        }
+    }
+    
     private String handleMemorySummaryRequest(String request) {
         logger.info("Handling memory summary request");
         
@@ -189,55 +444,154 @@ public class OrchestratorAgent extends SequentialAgent {
         }
     }
     
-    private String extractFilePath(String request) {
-        // Simple extraction - look for file paths in the request
+    /**
+     * Lesson plans depend only on the request type and the subject, grade
+     * level and topic read from it, so those make up the coalescing key.
+     */
+    private static String lessonKey(ParsedRequest request) {
+        ParsedRequest.Context context = request.getLessonPlanContext();
+        return request.getType() + "|" + context.getSubject() + "|" + context.getGradeLevel() + "|" + context.getTopic();
+    }
+    
+    private String extractGroupField(String request) {
+        // "analyze performance in scores.csv by section" -> "section"
         String[] words = request.split("\\s+");
-        for (String word : words) {
-            if (word.contains(".json") || word.contains(".csv")) {
-                return word;
+        for (int i = 0; i < words.length - 1; i++) {
+            String word = words[i].toLowerCase();
+            if (word.equals("by") || word.equals("per")) {
+                String field = words[i + 1].replaceAll("[^A-Za-z0-9_]", "");
+                if (!field.isEmpty() && !words[i + 1].contains(".")) {
+                    return field;
+                }
             }
         }
         return null;
     }
     
-    private String handleFullPackageRequest(String request) {
+    private CompletableFuture<String> handleFullPackageRequestAsync(ParsedRequest request, Deadline deadline) {
         logger.info("Handling full package request");
         
-        StringBuilder result = new StringBuilder();
+        return coalesced(lessonKey(request), deadline, () -> generateFullPackage(request, deadline));
+    }
+    
+    private CompletableFuture<String> generateFullPackage(ParsedRequest request, Deadline deadline) {
+        // The worksheet builds on the lesson plan; storing each one runs as soon as it exists.
+        // Nodes not yet started when the deadline expires are skipped.
+        ExecutionGraph graph = new ExecutionGraph("full_package", executor, deadline);
+        ExecutionGraph.Node<String> lessonPlan = graph.addAsync("lesson_plan",
+            () -> lessonPlanAgent.generateLessonPlanAsync(request, executor, deadline));
+        ExecutionGraph.Node<String> worksheet = graph.add("worksheet", lessonPlan,
+            plan -> worksheetAgent.generateWorksheet(
+                requestAnalyzer.analyze("Create worksheet for: " + plan), deadline));
+        graph.add("store_lesson_plan", lessonPlan, plan -> {
+            memoryService.storeLessonPlan(plan);
+            metricsService.recordLessonPlanGenerated();
+            return null;
+        });
+        graph.add("store_worksheet", worksheet, sheet -> {
+            memoryService.storeWorksheet(sheet);
+            metricsService.recordWorksheetGenerated();
+            return null;
+        });
+        ExecutionGraph.Node<String> lessonPackage = graph.add("package", lessonPlan, worksheet, (plan, sheet) ->
+            "LESSON PLAN:\n" + plan + "\n\n"
+                + "WORKSHEET:\n" + sheet + "\n\n"
+                + "Complete lesson package generated successfully!");
+        
+        return graph.run(lessonPackage)
+            .exceptionally(e -> {
+                if (isCancellation(e)) {
+                    throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                }
+                logger.error("Error generating full package", e);
+                return "Error generating complete lesson package. Please try again.";
+            });
+    }
+    
+    /**
+     * Runs work through {@link #lessonRequests}, sharing it with identical
+     * requests in flight. Shared work runs under the deadline of the caller
+     * that started it; if that deadline expires while this caller's has not,
+     * this caller tries again, joining newer shared work or starting its own.
+     */
+    private CompletableFuture<String> coalesced(String key, Deadline deadline,
+                                                Supplier<CompletableFuture<String>> work) {
+        return lessonRequests.execute(key, work).exceptionallyCompose(e -> {
+            if (isCancellation(e) && !deadline.isExpired()) {
+                logger.info("Shared work for {} stopped at another request's deadline, retrying", key);
+                return coalesced(key, deadline, work);
+            }
+            return CompletableFuture.failedFuture(e);
+        });
+    }
+    
+    /**
+     * Completes with the deadline message once the deadline expires, even
+     * if the underlying work has not noticed yet.
+     */
+    private CompletableFuture<String> withinDeadline(CompletableFuture<String> response, Deadline deadline) {
+        return deadline.bind(response).exceptionally(e -> {
+            if (isCancellation(e) && deadline.isExpired()) {
+                return DEADLINE_EXCEEDED_MESSAGE;
+            }
+            logger.error("Error in orchestrator processing", e);
+            return "I encountered an error processing your request. Please try again.";
+        });
+    }
+    
+    /**
+     * Counts requests that were still running when their deadline expired.
+     */
+    private String finish(String response, Deadline deadline) {
+        if (deadline.isExpired()) {
+            logger.warn("Request ran past its deadline");
+            metricsService.incrementCounter("requests_deadline_exceeded");
+        }
+        return response;
+    }
+    
+    private static boolean isCancellation(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof CancellationException;
+    }
+    
+    /**
+     * Responses and per-request latencies of one {@link #processBatch} call.
+     */
+    private static final class BatchRun {
+        private final long startedAt = System.nanoTime();
+        private final String[] responses;
+        private final long[] latencyNanos;
+        
+        BatchRun(int size) {
+            this.responses = new String[size];
+            this.latencyNanos = new long[size];
+        }
         
-        // Sequential execution
-        try {
-            // Step 1: Generate lesson plan
-            String lessonPlan = lessonPlanAgent.generateLessonPlan(request);
-            result.append("LESSON PLAN:\n").append(lessonPlan).append("\n\n");
-            
-            // Step 2: Generate worksheet based on lesson plan
-            String worksheetRequest = "Create worksheet for: " + lessonPlan;
-            String worksheet = worksheetAgent.generateWorksheet(worksheetRequest);
-            result.append("WORKSHEET:\n").append(worksheet).append("\n\n");
-            
-            // Store in memory
-            memoryService.storeLessonPlan(lessonPlan);
-            memoryService.storeWorksheet(worksheet);
-            
-            result.append("Complete lesson package generated successfully!");
+        void complete(int position, String response) {
+            responses[position] = response;
+            latencyNanos[position] = System.nanoTime() - startedAt;
+        }
+        
+        void report(MetricsService metricsService) {
+            long durationMs = (System.nanoTime() - startedAt) / 1_000_000;
+            long[] sorted = latencyNanos.clone();
+            Arrays.sort(sorted);
+            long p50 = percentileMillis(sorted, 0.50);
+            long p95 = percentileMillis(sorted, 0.95);
+            long max = percentileMillis(sorted, 1.0);
             
-        } catch (Exception e) {
-            logger.error("Error generating full package", e);
-            return "Error generating complete lesson package. Please try again.";
+            metricsService.recordRequestBatch(responses.length, durationMs, p50, p95, max);
+            logger.info("Batch of {} requests completed in {}ms (latency p50 {}ms, p95 {}ms, max {}ms)",
+                responses.length, durationMs, p50, p95, max);
         }
         
-        return result.toString();
-    }
-    
-    private enum RequestType {
-        LESSON_PLAN,
-        WORKSHEET,
-        GRADING,
-        PERFORMANCE_ANALYSIS,
-        MEMORY_SUMMARY,
-        METRICS_REPORT,
-        FULL_PACKAGE,
-        UNKNOWN
+        private static long percentileMillis(long[] sorted, double fraction) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(fraction * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.classroom.agents;
+
+/**
+ * A teacher request after one pass of the {@link RequestAnalyzer}: its type,
+ * the score file it names (if any) and the subject, grade level and topic as
+ * read by the lesson plan and worksheet agents, which use different tables.
+ */
+public final class ParsedRequest {
+    private final String request;
+    private final RequestType type;
+    private final String filePath;
+    private final Context lessonPlanContext;
+    private final Context worksheetContext;
+    
+    ParsedRequest(String request, RequestType type, String filePath,
+                  Context lessonPlanContext, Context worksheetContext) {
+        this.request = request;
+        this.type = type;
+        this.filePath = filePath;
+        this.lessonPlanContext = lessonPlanContext;
+        this.worksheetContext = worksheetContext;
+    }
+    
+    public String getRequest() {
+        return request;
+    }
+    
+    public RequestType getType() {
+        return type;
+    }
+    
+    /**
+     * Score file, directory or glob named in the request; only looked for in
+     * requests that read score files, null otherwise or if none is named.
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+    
+    public Context getLessonPlanContext() {
+        return lessonPlanContext;
+    }
+    
+    public Context getWorksheetContext() {
+        return worksheetContext;
+    }
+    
+    /**
+     * Subject, grade level and topic of a request.
+     */
+    public static final class Context {
+        private final String subject;
+        private final String gradeLevel;
+        private final String topic;
+        
+        Context(String subject, String gradeLevel, String topic) {
+            this.subject = subject;
+            this.gradeLevel = gradeLevel;
+            this.topic = topic;
+        }
+        
+        public String getSubject() {
+            return subject;
+        }
+        
+        public String getGradeLevel() {
+            return gradeLevel;
+        }
+        
+        public String getTopic() {
+            return topic;
+        }
+    }
+}
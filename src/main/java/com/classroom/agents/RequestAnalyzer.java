@@ -0,0 +1,256 @@
+package com.classroom.agents;
+
+import com.classroom.grading.KeywordAutomaton;
+import com.classroom.tools.StudentPerformanceTool;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Parses a teacher request in a single case-insensitive pass. Every keyword
+ * used for routing and for reading the subject, grade level and topic is
+ * compiled into one {@link KeywordAutomaton}; scanning the request once
+ * tells which of them occur, and the orchestrator's routing rules and the
+ * agents' lookup tables are then evaluated against that set in their
+ * original order, so results match the former {@code contains} checks.
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class RequestAnalyzer {
+    static final Pattern TOP_STUDENTS_PATTERN = Pattern.compile(
+        "\\b(?:top|best|highest)(?:\\s+(\\d+))?\\s+(?:students|scorers|performers)\\b", Pattern.CASE_INSENSITIVE);
+    static final Pattern BOTTOM_STUDENTS_PATTERN = Pattern.compile(
+        "\\b(?:bottom|lowest|worst)(?:\\s+(\\d+))?\\s+(?:students|scorers|performers)\\b", Pattern.CASE_INSENSITIVE);
+    // "what percentile is Bob in ...", "percentile rank of Alice Johnson"
+    static final Pattern PERCENTILE_RANK_PATTERN = Pattern.compile(
+        "\\bpercentile(?:\\s+rank)?\\s+(?:is|of|for)\\s+(.+?)(?:\\s+(?:in|from|on)\\b|[?!,]|\\.\\s|\\.$|$)",
+        Pattern.CASE_INSENSITIVE);
+
+    // Lookup tables, checked top to bottom: {value, keyword, keyword, ...}
+    private static final String[][] LESSON_PLAN_SUBJECTS = {
+        {"Mathematics", "math"},
+        {"Science", "science"},
+        {"English Language Arts", "english"},
+        {"History", "history"},
+        {"Social Studies", "social"},
+    };
+    private static final String[][] LESSON_PLAN_GRADE_LEVELS = {
+        {"Kindergarten", "kindergarten", "k"},
+        {"1st Grade", "1st", "first"},
+        {"2nd Grade", "2nd", "second"},
+        {"3rd Grade", "3rd", "third"},
+        {"4th Grade", "4th", "fourth"},
+        {"5th Grade", "5th", "fifth"},
+        {"6th Grade", "6th", "sixth"},
+        {"Middle School", "middle"},
+        {"High School", "high"},
+    };
+    private static final String[][] LESSON_PLAN_TOPICS = {
+        // Math topics
+        {"Fractions", "fraction"},
+        {"Multiplication", "multiplication"},
+        {"Division", "division"},
+        {"Geometry", "geometry"},
+        {"Algebra", "algebra"},
+        // Science topics
+        {"Photosynthesis", "photosynthesis"},
+        {"Ecosystems", "ecosystem"},
+        {"Cell Biology", "cell"},
+        {"Gravity and Forces", "gravity"},
+        {"Weather Systems", "weather"},
+        // English topics
+        {"Reading Comprehension", "reading"},
+        {"Writing Skills", "writing"},
+    };
+    private static final String[][] WORKSHEET_SUBJECTS = {
+        {"Mathematics", "math", "multiplication", "fraction", "division", "addition", "subtraction"},
+        {"Science", "science"},
+        {"English Language Arts", "english"},
+        {"History", "history"},
+    };
+    private static final String[][] WORKSHEET_GRADE_LEVELS = {
+        {"5th Grade", "5th", "fifth"},
+        {"4th Grade", "4th", "fourth"},
+        {"3rd Grade", "3rd", "third"},
+    };
+    private static final String[][] WORKSHEET_TOPICS = {
+        {"Fractions", "fraction"},
+        {"Multiplication", "multiplication"},
+        {"Reading Comprehension", "reading"},
+    };
+    private static final String DEFAULT_SUBJECT = "General Subject";
+    private static final String DEFAULT_GRADE_LEVEL = "Elementary";
+    private static final String DEFAULT_TOPIC = "Core Concepts";
+    // Created after the tables above, which its constructor reads
+    private static final RequestAnalyzer INSTANCE = new RequestAnalyzer();
+
+    private final Map<String, Integer> termIds = new LinkedHashMap<>();
+
+    // Routing keywords
+    private final int memory = term("memory");
+    private final int summary = term("summary");
+    private final int metrics = term("metrics");
+    private final int report = term("report");
+    private final int gradeAndAnalyze = term("grade and analy");
+    private final int[] topWords = terms("top", "best", "highest");
+    private final int[] bottomWords = terms("bottom", "lowest", "worst");
+    private final int percentile = term("percentile");
+    private final int analyze = term("analyze");
+    private final int performance = term("performance");
+    private final int studentScores = term("student-scores");
+    private final int grading = term("grading");
+    private final int progress = term("progress");
+    private final int status = term("status");
+    private final int feedback = term("feedback");
+    private final int gradeThese = term("grade these");
+    private final int gradeStudent = term("grade student");
+    private final int worksheet = term("worksheet");
+    private final int quiz = term("quiz");
+    private final int lesson = term("lesson");
+    private final int[] fileMarkers = terms(".json", ".csv", ".csnap", "/");
+
+    private final int[][] lessonPlanSubjects = table(LESSON_PLAN_SUBJECTS);
+    private final int[][] lessonPlanGradeLevels = table(LESSON_PLAN_GRADE_LEVELS);
+    private final int[][] lessonPlanTopics = table(LESSON_PLAN_TOPICS);
+    private final int[][] worksheetSubjects = table(WORKSHEET_SUBJECTS);
+    private final int[][] worksheetGradeLevels = table(WORKSHEET_GRADE_LEVELS);
+    private final int[][] worksheetTopics = table(WORKSHEET_TOPICS);
+
+    private final KeywordAutomaton automaton;
+
+    private RequestAnalyzer() {
+        String[] terms = termIds.keySet().toArray(new String[0]);
+        int[] categories = new int[terms.length];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = i;
+        }
+        this.automaton = new KeywordAutomaton(terms, categories, terms.length);
+    }
+
+    public static RequestAnalyzer getInstance() {
+        return INSTANCE;
+    }
+
+    public ParsedRequest analyze(String request) {
+        boolean[] found = new boolean[automaton.getCategoryCount()];
+        automaton.match(request, found);
+
+        RequestType type = classify(request, found);
+        String filePath = readsScoreFile(type) && anyOf(found, fileMarkers) ? extractFilePath(request) : null;
+
+        return new ParsedRequest(request, type, filePath,
+            new ParsedRequest.Context(
+                lookup(lessonPlanSubjects, LESSON_PLAN_SUBJECTS, found, DEFAULT_SUBJECT),
+                lookup(lessonPlanGradeLevels, LESSON_PLAN_GRADE_LEVELS, found, DEFAULT_GRADE_LEVEL),
+                lookup(lessonPlanTopics, LESSON_PLAN_TOPICS, found, DEFAULT_TOPIC)),
+            new ParsedRequest.Context(
+                lookup(worksheetSubjects, WORKSHEET_SUBJECTS, found, DEFAULT_SUBJECT),
+                lookup(worksheetGradeLevels, WORKSHEET_GRADE_LEVELS, found, DEFAULT_GRADE_LEVEL),
+                lookup(worksheetTopics, WORKSHEET_TOPICS, found, DEFAULT_TOPIC)));
+    }
+
+    /**
+     * Number of distinct keywords compiled into the automaton.
+     */
+    public int getKeywordCount() {
+        return termIds.size();
+    }
+
+    private RequestType classify(String request, boolean[] found) {
+        if (found[memory] && found[summary]) {
+            return RequestType.MEMORY_SUMMARY;
+        } else if (found[metrics] && found[report]) {
+            return RequestType.METRICS_REPORT;
+        } else if (found[gradeAndAnalyze]) {
+            return RequestType.GRADE_AND_ANALYZE;
+        }
+        // The ranking patterns only run when their leading keyword occurs
+        else if (anyOf(found, topWords) && TOP_STUDENTS_PATTERN.matcher(request).find()) {
+            return RequestType.TOP_STUDENTS;
+        } else if (anyOf(found, bottomWords) && BOTTOM_STUDENTS_PATTERN.matcher(request).find()) {
+            return RequestType.BOTTOM_STUDENTS;
+        } else if (found[percentile] && PERCENTILE_RANK_PATTERN.matcher(request).find()) {
+            return RequestType.PERCENTILE_RANK;
+        } else if (found[analyze] && (found[performance] || found[studentScores])) {
+            return RequestType.PERFORMANCE_ANALYSIS;
+        } else if (found[grading] && (found[progress] || found[status])) {
+            return RequestType.GRADING_PROGRESS;
+        } else if (found[grading] || found[feedback] || found[gradeThese] || found[gradeStudent]) {
+            return RequestType.GRADING;
+        } else if ((found[worksheet] || found[quiz]) && found[lesson]) {
+            return RequestType.FULL_PACKAGE;
+        } else if (found[worksheet] || found[quiz]) {
+            return RequestType.WORKSHEET;
+        } else if (found[lesson]) {
+            return RequestType.LESSON_PLAN;
+        }
+        return RequestType.UNKNOWN;
+    }
+
+    private static boolean readsScoreFile(RequestType type) {
+        return type == RequestType.PERFORMANCE_ANALYSIS || type == RequestType.TOP_STUDENTS
+            || type == RequestType.BOTTOM_STUDENTS || type == RequestType.PERCENTILE_RANK;
+    }
+
+    private static String extractFilePath(String request) {
+        // Simple extraction - look for file paths in the request
+        String[] words = request.split("\\s+");
+        for (String word : words) {
+            if (word.contains(".json") || word.contains(".csv") || word.contains(".csnap")) {
+                return word;
+            }
+        }
+        // Fall back to a directory or glob of per-section score files
+        for (String word : words) {
+            if (word.indexOf('/') >= 0 && StudentPerformanceTool.isMultiFileTarget(word)) {
+                return word;
+            }
+        }
+        return null;
+    }
+
+    private static String lookup(int[][] rows, String[][] values, boolean[] found, String defaultValue) {
+        for (int row = 0; row < rows.length; row++) {
+            if (anyOf(found, rows[row])) {
+                return values[row][0];
+            }
+        }
+        return defaultValue;
+    }
+
+    private static boolean anyOf(boolean[] found, int[] ids) {
+        for (int id : ids) {
+            if (found[id]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int term(String keyword) {
+        Integer id = termIds.get(keyword);
+        if (id == null) {
+            id = termIds.size();
+            termIds.put(keyword, id);
+        }
+        return id;
+    }
+
+    private int[] terms(String... keywords) {
+        int[] ids = new int[keywords.length];
+        for (int i = 0; i < keywords.length; i++) {
+            ids[i] = term(keywords[i]);
+        }
+        return ids;
+    }
+
+    private int[][] table(String[][] rows) {
+        int[][] ids = new int[rows.length][];
+        for (int row = 0; row < rows.length; row++) {
+            ids[row] = terms(Arrays.copyOfRange(rows[row], 1, rows[row].length));
+        }
+        return ids;
+    }
+}
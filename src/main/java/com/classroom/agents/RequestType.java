@@ -0,0 +1,20 @@
+package com.classroom.agents;
+
+/**
+ * Kinds of teacher request the orchestrator can route.
+ */
+public enum RequestType {
+    LESSON_PLAN,
+    WORKSHEET,
+    GRADING,
+    GRADING_PROGRESS,
+    GRADE_AND_ANALYZE,
+    PERFORMANCE_ANALYSIS,
+    TOP_STUDENTS,
+    BOTTOM_STUDENTS,
+    PERCENTILE_RANK,
+    MEMORY_SUMMARY,
+    METRICS_REPORT,
+    FULL_PACKAGE,
+    UNKNOWN
+}
@@ -0,0 +1,63 @@
+package com.classroom.agents;
+
+import com.classroom.observability.MetricsService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent work. The first caller for a key starts
+ * the computation; callers arriving with the same key while it is in
+ * flight share its result instead of starting their own. Once it
+ * completes the key is released, so later callers compute afresh.
+ *
+ * Every caller gets its own copy of the shared future, so completing or
+ * cancelling one caller's future does not affect the others. Counters
+ * {@code <name>_executed} and {@code <name>_coalesced} are kept in
+ * {@link MetricsService}.
+ */
+public final class SingleFlight<K, V> {
+    private final String name;
+    private final MetricsService metricsService;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlight(String name) {
+        this.name = name;
+        this.metricsService = MetricsService.getInstance();
+    }
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> computation) {
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            metricsService.recordSingleFlight(name, true);
+            return existing.copy();
+        }
+
+        metricsService.recordSingleFlight(name, false);
+        CompletableFuture<V> started;
+        try {
+            started = computation.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((value, e) -> {
+            // Release the key first so callers arriving after completion start fresh work
+            inFlight.remove(key, shared);
+            if (e != null) {
+                shared.completeExceptionally(e);
+            } else {
+                shared.complete(value);
+            }
+        });
+        return shared.copy();
+    }
+
+    /**
+     * Number of keys with a computation currently in flight.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -1,5 +1,7 @@
 package com.classroom.agents;
 
+import com.classroom.concurrent.Deadline;
+import com.classroom.concurrent.DeadlineExceededException;
 import com.google.adk.agents.Agent;
 import com.google.adk.agents.ToolAgent;
 import com.google.adk.core.AgentRuntime;
@@ -29,13 +31,28 @@ public class WorksheetAgent extends ToolAgent {
     }
     
     public String generateWorksheet(String request) {
-        logger.info("Generating worksheet for request: {}", request);
+        return generateWorksheet(RequestAnalyzer.getInstance().analyze(request));
+    }
+    
+    public String generateWorksheet(ParsedRequest request) {
+        return generateWorksheet(request, Deadline.none());
+    }
+    
+    /**
+     * Generates the worksheet unless the deadline expires first; it is
+     * checked before each generation step.
+     */
+    public String generateWorksheet(ParsedRequest request, Deadline deadline) {
+        logger.info("Generating worksheet for request: {}", request.getRequest());
         
         try {
-            // Extract worksheet parameters
-            String subject = extractSubject(request);
-            String gradeLevel = extractGradeLevel(request);
-            String topic = extractTopic(request);
+            deadline.check();
+            
+            // Worksheet parameters were read when the request was parsed
+            ParsedRequest.Context context = request.getWorksheetContext();
+            String subject = context.getSubject();
+            String gradeLevel = context.getGradeLevel();
+            String topic = context.getTopic();
             
             // Use Google Search for additional content ideas (simulated)
             String searchQuery = subject + " " + topic + " practice problems grade " + gradeLevel;
@@ -45,11 +62,15 @@ public class WorksheetAgent extends ToolAgent {
             String difficultyLevel = determineDifficultyLevel();
             
             // Generate worksheet content
+            deadline.check();
             String worksheet = createWorksheetContent(subject, gradeLevel, topic, difficultyLevel);
             
             logger.info("Worksheet generated successfully");
             return worksheet;
             
+        } catch (DeadlineExceededException e) {
+            logger.warn("Worksheet generation abandoned: {}", e.getMessage());
+            return "Worksheet generation stopped: the request deadline passed.";
         } catch (Exception e) {
             logger.error("Error generating worksheet", e);
             return "Error generating worksheet. Please provide more details about the subject and topic.";
@@ -180,33 +201,4 @@ public class WorksheetAgent extends ToolAgent {
         
         return problems.toString();
     }
-    
-    private String extractSubject(String request) {
-        String lowerRequest = request.toLowerCase();
-        if (lowerRequest.contains("math") || lowerRequest.contains("multiplication") 
-            || lowerRequest.contains("fraction") || lowerRequest.contains("division") 
-            || lowerRequest.contains("addition") || lowerRequest.contains("subtraction")) {
-            return "Mathematics";
-        }
-        if (lowerRequest.contains("science")) return "Science";
-        if (lowerRequest.contains("english")) return "English Language Arts";
-        if (lowerRequest.contains("history")) return "History";
-        return "General Subject";
-    }
-    
-    private String extractGradeLevel(String request) {
-        String lowerRequest = request.toLowerCase();
-        if (lowerRequest.contains("5th") || lowerRequest.contains("fifth")) return "5th Grade";
-        if (lowerRequest.contains("4th") || lowerRequest.contains("fourth")) return "4th Grade";
-        if (lowerRequest.contains("3rd") || lowerRequest.contains("third")) return "3rd Grade";
-        return "Elementary";
-    }
-    
-    private String extractTopic(String request) {
-        String lowerRequest = request.toLowerCase();
-        if (lowerRequest.contains("fraction")) return "Fractions";
-        if (lowerRequest.contains("multiplication")) return "Multiplication";
-        if (lowerRequest.contains("reading")) return "Reading Comprehension";
-        return "Core Concepts";
-    }
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+package com.classroom.cache;
+
+import com.classroom.observability.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Least recently used cache bounded by entry count and estimated heap
+ * bytes, with an optional time to live. Once either limit is exceeded the
+ * least recently used entries are evicted; expired entries are dropped when
+ * looked up or when they reach the eviction end of the cache. Values larger
+ * than the byte limit are not cached.
+ *
+ * Hits, misses, evictions and expirations are counted in
+ * {@link MetricsService} as {@code <name>_hits}, {@code <name>_misses},
+ * {@code <name>_evictions} and {@code <name>_expirations}. Methods
+ * synchronize on the cache.
+ */
+public class BoundedLruCache<K, V> {
+    private static final Logger logger = LoggerFactory.getLogger(BoundedLruCache.class);
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final String name;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private final MetricsService metricsService;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long currentBytes;
+
+    /**
+     * Cache whose entries do not expire.
+     *
+     * @param weigher estimated heap bytes of a key and value, excluding the cache's own per-entry overhead
+     */
+    public BoundedLruCache(String name, int maxEntries, long maxBytes,
+                           ToLongBiFunction<? super K, ? super V> weigher, MetricsService metricsService) {
+        this(name, maxEntries, maxBytes, 0, TimeUnit.NANOSECONDS, weigher, metricsService);
+    }
+
+    /**
+     * @param timeToLive how long an entry may be served after it is put, or 0 to never expire
+     * @param weigher    estimated heap bytes of a key and value, excluding the cache's own per-entry overhead
+     */
+    public BoundedLruCache(String name, int maxEntries, long maxBytes, long timeToLive, TimeUnit unit,
+                           ToLongBiFunction<? super K, ? super V> weigher, MetricsService metricsService) {
+        if (maxEntries < 1 || maxBytes < 1 || timeToLive < 0) {
+            throw new IllegalArgumentException("Cache limits must be positive and time to live must not be negative");
+        }
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = unit.toNanos(timeToLive);
+        this.weigher = weigher;
+        this.metricsService = metricsService;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Cached value for the key, or null if there is none or it has expired.
+     */
+    public V get(K key) {
+        V value = null;
+        boolean expired = false;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.isExpired(System.nanoTime())) {
+                    entries.remove(key);
+                    currentBytes -= weigh(key, entry.value);
+                    onRemoval(key, entry.value);
+                    expired = true;
+                } else {
+                    value = entry.value;
+                }
+            }
+        }
+
+        if (expired) {
+            metricsService.incrementCounter(name + "_expirations");
+        }
+        metricsService.incrementCounter(value != null ? name + "_hits" : name + "_misses");
+        return value;
+    }
+
+    /**
+     * Caches the value, replacing any previous one for the key, then evicts
+     * down to the limits.
+     *
+     * @return false if the value alone exceeds the byte limit and was not cached
+     */
+    public synchronized boolean put(K key, V value) {
+        long size = weigh(key, value);
+        if (size > maxBytes) {
+            return false;
+        }
+
+        long expiresAtNanos = ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0;
+        Entry<V> replaced = entries.put(key, new Entry<>(value, expiresAtNanos, ttlNanos > 0));
+        if (replaced != null) {
+            currentBytes -= weigh(key, replaced.value);
+        }
+        currentBytes += size;
+
+        evictIfNeeded();
+        return true;
+    }
+
+    /**
+     * Removes every entry matching the filter, without counting evictions.
+     *
+     * @return number of entries removed
+     */
+    public synchronized int removeIf(BiPredicate<? super K, ? super V> filter) {
+        int removed = 0;
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            if (filter.test(entry.getKey(), entry.getValue().value)) {
+                iterator.remove();
+                currentBytes -= weigh(entry.getKey(), entry.getValue().value);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Whether any cached key, expired or not, matches; does not affect recency.
+     */
+    public synchronized boolean containsKeyMatching(Predicate<? super K> predicate) {
+        for (K key : entries.keySet()) {
+            if (predicate.test(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * Called with the cache's lock held after an entry is evicted or
+     * expires; entries removed by {@link #removeIf}, {@link #clear} or a
+     * replacing {@link #put} are not reported. Does nothing by default.
+     */
+    protected void onRemoval(K key, V value) {
+    }
+
+    private void evictIfNeeded() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = iterator.next();
+            boolean expired = eldest.getValue().isExpired(now);
+            if (!expired && entries.size() <= maxEntries && currentBytes <= maxBytes) {
+                break;
+            }
+            iterator.remove();
+            currentBytes -= weigh(eldest.getKey(), eldest.getValue().value);
+            onRemoval(eldest.getKey(), eldest.getValue().value);
+            metricsService.incrementCounter(expired ? name + "_expirations" : name + "_evictions");
+            logger.debug("Dropped {} entry for {} ({})", name, eldest.getKey(), expired ? "expired" : "evicted");
+        }
+    }
+
+    private long weigh(K key, V value) {
+        return ENTRY_OVERHEAD_BYTES + weigher.applyAsLong(key, value);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAtNanos;
+        private final boolean expires;
+
+        Entry(V value, long expiresAtNanos, boolean expires) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+            this.expires = expires;
+        }
+
+        boolean isExpired(long now) {
+            return expires && now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.classroom.concurrent;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which a request must finish, carried from where the
+ * request enters the application through the orchestrator into every agent
+ * and tool working on it. A deadline expires when its time passes or when
+ * it is cancelled. On expiry it:
+ * <ul>
+ *   <li>makes {@link #check()} throw, so loops over responses, records or
+ *       graph nodes stop at their next check;</li>
+ *   <li>interrupts threads running work through {@link #runInterruptibly};</li>
+ *   <li>fails futures passed to {@link #bind} with a {@link DeadlineExceededException}.</li>
+ * </ul>
+ * Abandoned work is therefore shed rather than left running after nobody
+ * waits for its result.
+ *
+ * Timed expiry is scheduled on one shared timer thread, which only hands
+ * it over to the executor given to {@link #after}; interrupts and listeners
+ * run there, or on the thread calling {@link #cancel()}, and nowhere else.
+ * A check that finds the time has passed before the timer has fired only
+ * marks the deadline expired. Call {@link #release()} once the request has
+ * finished so its timer does not stay scheduled until the deadline.
+ */
+public final class Deadline {
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+    private static final ScheduledThreadPoolExecutor TIMER = newTimer();
+
+    private final long expiresAtNanos;
+    private volatile boolean expired;
+    private boolean notified; // guarded by this
+    private final Set<Thread> workers = new HashSet<>(); // guarded by this
+    private final Set<Thread> interruptedWorkers = new HashSet<>(); // guarded by this
+    private final List<Runnable> expiryListeners = new ArrayList<>(); // guarded by this
+    private ScheduledFuture<?> timer; // guarded by this
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Deadline that expires after the timeout, interrupting workers and
+     * running expiry listeners on the executor. {@link #check()} also
+     * detects the passed time itself, so a busy executor cannot postpone
+     * it failing, only the interrupts and listeners.
+     */
+    public static Deadline after(long timeout, TimeUnit unit, Executor executor) {
+        Deadline deadline = new Deadline(System.nanoTime() + unit.toNanos(timeout));
+        ScheduledFuture<?> timer = TIMER.schedule(() -> executor.execute(deadline::expire), timeout, unit);
+        synchronized (deadline) {
+            deadline.timer = timer;
+        }
+        return deadline;
+    }
+
+    /**
+     * Deadline that never passes; it can still be cancelled.
+     */
+    public static Deadline none() {
+        return new Deadline(NO_EXPIRY);
+    }
+
+    public boolean isExpired() {
+        if (!expired && expiresAtNanos != NO_EXPIRY && System.nanoTime() - expiresAtNanos >= 0) {
+            // Interrupts and listeners are left to the timer
+            expired = true;
+        }
+        return expired;
+    }
+
+    /**
+     * @throws DeadlineExceededException if the deadline has expired
+     */
+    public void check() {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Request deadline exceeded");
+        }
+    }
+
+    /**
+     * Milliseconds left, 0 once expired, or {@link Long#MAX_VALUE} for a deadline without expiry.
+     * Rounded up, so a timeout of this length never fires before the deadline has expired.
+     */
+    public long remainingMillis() {
+        if (isExpired()) {
+            return 0;
+        }
+        if (expiresAtNanos == NO_EXPIRY) {
+            return Long.MAX_VALUE;
+        }
+        long remainingNanos = expiresAtNanos - System.nanoTime();
+        return Math.max(1, (remainingNanos + 999_999) / 1_000_000);
+    }
+
+    /**
+     * Expires the deadline now.
+     */
+    public void cancel() {
+        expire();
+    }
+
+    /**
+     * Unschedules the expiry timer once the request has finished. The
+     * deadline still reports expiry when checked after its time, but no
+     * longer interrupts or notifies anyone on its own.
+     */
+    public void release() {
+        ScheduledFuture<?> scheduled;
+        synchronized (this) {
+            scheduled = timer;
+            timer = null;
+        }
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+
+    /**
+     * Runs work on the calling thread, interrupting it if the deadline
+     * expires before the work returns. An interrupt sent by this deadline
+     * is cleared again before returning; interrupts from anywhere else,
+     * such as an executor shutting down, are kept.
+     *
+     * @throws DeadlineExceededException if the deadline has already expired
+     */
+    public <T> T runInterruptibly(Supplier<T> work) {
+        Thread current = Thread.currentThread();
+        boolean registered;
+        check();
+        synchronized (this) {
+            if (expired) {
+                throw new DeadlineExceededException("Request deadline exceeded");
+            }
+            registered = workers.add(current);
+        }
+        try {
+            return work.get();
+        } finally {
+            if (registered) {
+                boolean interruptedByDeadline;
+                synchronized (this) {
+                    workers.remove(current);
+                    interruptedByDeadline = interruptedWorkers.remove(current);
+                }
+                if (interruptedByDeadline) {
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    /**
+     * Fails the future with a {@link DeadlineExceededException} when the
+     * deadline expires, unless it has completed by then.
+     */
+    public <T> CompletableFuture<T> bind(CompletableFuture<T> future) {
+        Runnable fail = () -> future.completeExceptionally(new DeadlineExceededException("Request deadline exceeded"));
+        onExpiry(fail);
+        // Futures that finish in time are not held until the deadline passes
+        future.whenComplete((value, e) -> {
+            synchronized (this) {
+                expiryListeners.remove(fail);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs the action on expiry, or right away on the calling thread if
+     * already expired.
+     */
+    public void onExpiry(Runnable action) {
+        synchronized (this) {
+            if (!isExpired()) {
+                expiryListeners.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    private void expire() {
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (notified) {
+                return;
+            }
+            notified = true;
+            expired = true;
+            timer = null;
+            for (Thread worker : workers) {
+                // A thread already interrupted by someone else keeps that interrupt
+                if (!worker.isInterrupted()) {
+                    worker.interrupt();
+                    interruptedWorkers.add(worker);
+                }
+            }
+            listeners = new ArrayList<>(expiryListeners);
+            expiryListeners.clear();
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "classroom-deadline-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Released deadlines leave the queue right away instead of at their expiry
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+}
@@ -0,0 +1,15 @@
+package com.classroom.concurrent;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Thrown when work is abandoned because its request's {@link Deadline} has
+ * passed or the request was cancelled.
+ */
+public class DeadlineExceededException extends CancellationException {
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,141 @@
+package com.classroom.grading;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded memo of graded answers, so identical answers are scored and given
+ * feedback once. Keys are a 64-bit hash of the case-folded answer plus the
+ * rubric identity; case folding is the only normalization because the
+ * rubric already ignores case, while whitespace and length still affect
+ * the grade. A hash match is confirmed against the stored answer, so a
+ * collision can never return another answer's grade.
+ *
+ * The memo is a fixed, direct-mapped table of immutable entries: lookups
+ * and inserts are lock-free, and a new answer simply replaces whatever
+ * occupied its slot. Safe for concurrent use by grading threads.
+ */
+public final class GradingMemo {
+    /** Longer answers are rarely repeated and are not worth keeping. */
+    public static final int MAX_ANSWER_LENGTH = 2048;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity maximum number of remembered answers, rounded up to a power of two
+     */
+    public GradingMemo(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the answer with each character lower-cased, computed without a copy.
+     */
+    public static long hash(CharSequence answer) {
+        long hash = FNV_OFFSET;
+        for (int i = 0, length = answer.length(); i < length; i++) {
+            char c = Character.toLowerCase(answer.charAt(i));
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the remembered grade for this answer under this rubric, or null.
+     */
+    public Entry get(long hash, String rubricKey, CharSequence answer) {
+        Entry entry = slots.get(slot(hash));
+        if (entry != null && entry.hash == hash && entry.rubricKey.equals(rubricKey)
+                && sameFolded(entry.answer, answer)) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(long hash, String rubricKey, String answer, int score, String feedback) {
+        if (answer.length() <= MAX_ANSWER_LENGTH) {
+            slots.set(slot(hash), new Entry(hash, rubricKey, answer, score, feedback));
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Hits since the last call; used to publish per-batch metrics.
+     */
+    public long drainHits() {
+        return hits.sumThenReset();
+    }
+
+    /**
+     * Misses since the last call.
+     */
+    public long drainMisses() {
+        return misses.sumThenReset();
+    }
+
+    private int slot(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static boolean sameFolded(String stored, CharSequence answer) {
+        if (stored.length() != answer.length()) {
+            return false;
+        }
+        for (int i = 0; i < stored.length(); i++) {
+            char a = stored.charAt(i);
+            char b = answer.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A remembered grade.
+     */
+    public static final class Entry {
+        private final long hash;
+        private final String rubricKey;
+        private final String answer;
+        private final int score;
+        private final String feedback;
+
+        Entry(long hash, String rubricKey, String answer, int score, String feedback) {
+            this.hash = hash;
+            this.rubricKey = rubricKey;
+            this.answer = answer;
+            this.score = score;
+            this.feedback = feedback;
+        }
+
+        public int getScore() { return score; }
+        public String getFeedback() { return feedback; }
+    }
+}
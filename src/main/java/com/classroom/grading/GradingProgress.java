@@ -0,0 +1,126 @@
+package com.classroom.grading;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running statistics of one grading batch, updated as each result is
+ * produced. All counters are {@link LongAdder}s, so parallel grading
+ * threads record without locks or contention, and a progress report can
+ * be read at any moment without rescanning results. While grading is in
+ * progress the individual counters are read one after another, so a
+ * report may be off by the few results recorded during the read.
+ */
+public final class GradingProgress {
+    public static final int HIGH_SCORE = 80;
+    private static final int HISTOGRAM_BUCKETS = 10; // 0-9, 10-19, ..., 90-100
+
+    private final long expected;
+    private final long startedAtMillis;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder scoreTotal = new LongAdder();
+    private final LongAdder highScores = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[HISTOGRAM_BUCKETS];
+    private volatile long finishedAtMillis;
+    private volatile boolean cancelled;
+
+    /**
+     * @param expected number of responses in the batch, or -1 if not known up front (streaming)
+     */
+    public GradingProgress(long expected) {
+        this.expected = expected;
+        this.startedAtMillis = System.currentTimeMillis();
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    public void record(int score) {
+        count.increment();
+        scoreTotal.add(score);
+        if (score >= HIGH_SCORE) {
+            highScores.increment();
+        }
+        histogram[Math.max(0, Math.min(HISTOGRAM_BUCKETS - 1, score / 10))].increment();
+    }
+
+    public void finish() {
+        finishedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Marks the batch as stopped before all responses were graded.
+     */
+    public void cancel() {
+        cancelled = true;
+        finish();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isFinished() {
+        return finishedAtMillis != 0;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getExpected() {
+        return expected;
+    }
+
+    public long getHighScoreCount() {
+        return highScores.sum();
+    }
+
+    public double getAverageScore() {
+        long graded = count.sum();
+        return graded == 0 ? 0.0 : (double) scoreTotal.sum() / graded;
+    }
+
+    /**
+     * Responses scoring within [bucket * 10, bucket * 10 + 9]; the last bucket also holds 100.
+     */
+    public long getHistogramCount(int bucket) {
+        return histogram[bucket].sum();
+    }
+
+    public long getElapsedMillis() {
+        long end = isFinished() ? finishedAtMillis : System.currentTimeMillis();
+        return end - startedAtMillis;
+    }
+
+    /**
+     * Human-readable snapshot of the batch so far.
+     */
+    public String describe() {
+        long graded = getCount();
+        long elapsed = getElapsedMillis();
+
+        StringBuilder report = new StringBuilder();
+        report.append(isCancelled() ? "GRADING CANCELLED\n" : isFinished() ? "GRADING COMPLETE\n" : "GRADING IN PROGRESS\n");
+        report.append("Graded: ").append(graded);
+        if (expected >= 0) {
+            report.append(" of ").append(expected);
+            if (expected > 0) {
+                report.append(" (").append(String.format("%.1f", graded * 100.0 / expected)).append("%)");
+            }
+        }
+        report.append("\n");
+        report.append("Average Score: ").append(String.format("%.1f", getAverageScore())).append("/100\n");
+        report.append("Students with 80+ scores: ").append(getHighScoreCount()).append("\n");
+        report.append("Elapsed: ").append(elapsed).append("ms");
+        if (elapsed > 0) {
+            report.append(" (").append(graded * 1000 / elapsed).append(" responses/s)");
+        }
+        report.append("\n\nSCORE HISTOGRAM:\n");
+        for (int bucket = HISTOGRAM_BUCKETS - 1; bucket >= 0; bucket--) {
+            int low = bucket * 10;
+            int high = bucket == HISTOGRAM_BUCKETS - 1 ? 100 : low + 9;
+            report.append(String.format("%3d-%-3d: ", low, high)).append(getHistogramCount(bucket)).append("\n");
+        }
+        return report.toString();
+    }
+}
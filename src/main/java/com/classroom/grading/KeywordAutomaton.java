@@ -0,0 +1,178 @@
+package com.classroom.grading;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton over a set of keywords and phrases, each belonging
+ * to a category. One left-to-right pass over the text finds every category
+ * with at least one matching term, however many terms there are. Matching
+ * is case-insensitive: characters are folded one at a time while scanning,
+ * so no lower-cased copy of the text is made. Terms match anywhere in the
+ * text, like {@link String#contains}.
+ *
+ * Instances are immutable and safe to share between grading threads.
+ */
+public final class KeywordAutomaton {
+    private static final int ROOT = 0;
+    private static final int[] NO_CATEGORIES = new int[0];
+
+    // Per state: sorted edge labels and their targets, failure link and matched categories
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    private final int[][] categories;
+    private final int categoryCount;
+
+    /**
+     * @param terms         keywords or phrases; case is ignored
+     * @param termCategory  category of each term, in [0, categoryCount)
+     * @param categoryCount number of categories
+     */
+    public KeywordAutomaton(String[] terms, int[] termCategory, int categoryCount) {
+        if (terms.length != termCategory.length) {
+            throw new IllegalArgumentException("Every term needs a category");
+        }
+        this.categoryCount = categoryCount;
+
+        // Build the trie with hash-map edges, then freeze it into sorted arrays
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<int[]> outputs = new ArrayList<>();
+        trie.add(new HashMap<>());
+        outputs.add(NO_CATEGORIES);
+
+        for (int t = 0; t < terms.length; t++) {
+            String term = terms[t];
+            if (term.isEmpty()) {
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < term.length(); i++) {
+                char c = Character.toLowerCase(term.charAt(i));
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new HashMap<>());
+                    outputs.add(NO_CATEGORIES);
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            outputs.set(state, addCategory(outputs.get(state), termCategory[t]));
+        }
+
+        int states = trie.size();
+        this.edgeChars = new char[states][];
+        this.edgeTargets = new int[states][];
+        for (int s = 0; s < states; s++) {
+            Map<Character, Integer> edges = trie.get(s);
+            char[] chars = new char[edges.size()];
+            int n = 0;
+            for (char c : edges.keySet()) {
+                chars[n++] = c;
+            }
+            Arrays.sort(chars);
+            int[] targets = new int[chars.length];
+            for (int i = 0; i < chars.length; i++) {
+                targets[i] = edges.get(chars[i]);
+            }
+            edgeChars[s] = chars;
+            edgeTargets[s] = targets;
+        }
+
+        // Breadth-first failure links; each state inherits the outputs of its failure state
+        this.failure = new int[states];
+        this.categories = new int[states][];
+        categories[ROOT] = outputs.get(ROOT);
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[ROOT]) {
+            failure[target] = ROOT;
+            categories[target] = outputs.get(target);
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int child = edgeTargets[state][i];
+                int fallback = failure[state];
+                int next;
+                while ((next = step(fallback, c)) < 0 && fallback != ROOT) {
+                    fallback = failure[fallback];
+                }
+                failure[child] = next < 0 ? ROOT : next;
+
+                int[] merged = outputs.get(child);
+                for (int category : categories[failure[child]]) {
+                    merged = addCategory(merged, category);
+                }
+                categories[child] = merged;
+                queue.add(child);
+            }
+        }
+    }
+
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    public int getStateCount() {
+        return failure.length;
+    }
+
+    /**
+     * Scans the text once and flags every category with a matching term.
+     * Stops early once all categories have been seen.
+     *
+     * @param found receives true at each matched category's index; must have
+     *              at least {@link #getCategoryCount()} entries and start cleared
+     * @return number of distinct categories matched
+     */
+    public int match(CharSequence text, boolean[] found) {
+        int matched = 0;
+        int state = ROOT;
+
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = step(state, c)) < 0 && state != ROOT) {
+                state = failure[state];
+            }
+            state = next < 0 ? ROOT : next;
+
+            for (int category : categories[state]) {
+                if (!found[category]) {
+                    found[category] = true;
+                    if (++matched == categoryCount) {
+                        return matched;
+                    }
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Goto function: the child of state on c, or -1.
+     */
+    private int step(int state, char c) {
+        int index = Arrays.binarySearch(edgeChars[state], c);
+        return index < 0 ? -1 : edgeTargets[state][index];
+    }
+
+    private static int[] addCategory(int[] categories, int category) {
+        for (int existing : categories) {
+            if (existing == category) {
+                return categories;
+            }
+        }
+        int[] extended = Arrays.copyOf(categories, categories.length + 1);
+        extended[categories.length] = category;
+        return extended;
+    }
+}
@@ -0,0 +1,215 @@
+package com.classroom.grading;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds clusters of suspiciously similar answers in one batch without
+ * comparing every pair. Each answer is reduced to word 3-shingles, the
+ * shingles to a 64-value MinHash signature, and the signature is split into
+ * 8 bands of 8 rows. Answers sharing a band are candidates, and a candidate
+ * pair is confirmed when its signatures agree on at least 80% of values
+ * (the estimated Jaccard similarity). Confirmed pairs are merged into
+ * clusters with union-find, so the total cost is close to linear in the
+ * number of answers.
+ *
+ * {@link #add} may be called concurrently for distinct indexes while the
+ * batch is being graded; {@link #findClusters} is called once afterwards.
+ */
+public final class NearDuplicateDetector {
+    private static final int SIGNATURE_SIZE = 64;
+    private static final int BANDS = 8;
+    private static final int ROWS_PER_BAND = SIGNATURE_SIZE / BANDS;
+    private static final int SHINGLE_WORDS = 3;
+    private static final int MIN_WORDS = 8; // shorter answers are too generic to compare
+    private static final double SIMILARITY_THRESHOLD = 0.8;
+    private static final int MAX_BUCKET_COMPARISONS = 8;
+
+    private final int[][] signatures;
+
+    /**
+     * @param answerCount number of answers in the batch; indexes run from 0 to answerCount - 1
+     */
+    public NearDuplicateDetector(int answerCount) {
+        this.signatures = new int[answerCount][];
+    }
+
+    /**
+     * Computes and stores the signature of one answer.
+     */
+    public void add(int index, CharSequence answer) {
+        signatures[index] = signature(answer);
+    }
+
+    /**
+     * Groups of answer indexes (ascending) whose answers are near-duplicates
+     * of each other, ordered by their first index.
+     */
+    public List<int[]> findClusters() {
+        int[] parent = new int[signatures.length];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+
+        for (int band = 0; band < BANDS; band++) {
+            Map<Long, int[]> buckets = new HashMap<>();
+            for (int i = 0; i < signatures.length; i++) {
+                int[] signature = signatures[i];
+                if (signature == null) {
+                    continue;
+                }
+
+                // Compare against a few earlier members of the bucket; a huge
+                // bucket of copies still joins one cluster through union-find
+                long key = bandKey(signature, band);
+                int[] members = buckets.get(key);
+                if (members == null) {
+                    buckets.put(key, new int[] {i});
+                    continue;
+                }
+                for (int member : members) {
+                    if (find(parent, member) != find(parent, i)
+                            && similarity(signatures[member], signature) >= SIMILARITY_THRESHOLD) {
+                        union(parent, member, i);
+                    }
+                }
+                if (members.length < MAX_BUCKET_COMPARISONS) {
+                    int[] extended = Arrays.copyOf(members, members.length + 1);
+                    extended[members.length] = i;
+                    buckets.put(key, extended);
+                }
+            }
+        }
+
+        // Roots are the smallest member, so clusters appear in order of their first answer
+        int[] sizes = new int[parent.length];
+        for (int i = 0; i < parent.length; i++) {
+            sizes[find(parent, i)]++;
+        }
+        Map<Integer, List<Integer>> byRoot = new HashMap<>();
+        List<List<Integer>> ordered = new ArrayList<>();
+        for (int i = 0; i < parent.length; i++) {
+            int root = find(parent, i);
+            if (sizes[root] < 2) {
+                continue;
+            }
+            List<Integer> cluster = byRoot.get(root);
+            if (cluster == null) {
+                cluster = new ArrayList<>();
+                byRoot.put(root, cluster);
+                ordered.add(cluster);
+            }
+            cluster.add(i);
+        }
+
+        List<int[]> clusters = new ArrayList<>();
+        for (List<Integer> cluster : ordered) {
+            clusters.add(cluster.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return clusters;
+    }
+
+    /**
+     * Fraction of signature positions on which two signatures agree.
+     */
+    static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (a[i] == b[i]) equal++;
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    /**
+     * MinHash signature over word 3-shingles of the case-folded answer, or
+     * null if the answer has too few words. Words are runs of letters and
+     * digits, so punctuation and spacing differences do not matter.
+     */
+    static int[] signature(CharSequence answer) {
+        long[] window = new long[SHINGLE_WORDS];
+        int words = 0;
+        int[] signature = null;
+
+        int length = answer.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(answer.charAt(i))) i++;
+            if (i == length) {
+                break;
+            }
+            long wordHash = 0xcbf29ce484222325L;
+            while (i < length && Character.isLetterOrDigit(answer.charAt(i))) {
+                wordHash = (wordHash ^ Character.toLowerCase(answer.charAt(i))) * 0x100000001b3L;
+                i++;
+            }
+
+            window[words % SHINGLE_WORDS] = wordHash;
+            words++;
+            if (words >= SHINGLE_WORDS) {
+                if (signature == null) {
+                    signature = new int[SIGNATURE_SIZE];
+                    Arrays.fill(signature, Integer.MAX_VALUE);
+                }
+                long shingle = 0;
+                for (int w = words - SHINGLE_WORDS; w < words; w++) {
+                    shingle = shingle * 0x9E3779B97F4A7C15L + window[w % SHINGLE_WORDS];
+                }
+                updateSignature(signature, mix(shingle));
+            }
+        }
+
+        return words >= MIN_WORDS ? signature : null;
+    }
+
+    /**
+     * Applies the shingle to all hash functions; the i-th function is
+     * h1 + i * h2 over the two halves of the mixed shingle hash.
+     */
+    private static void updateSignature(int[] signature, long shingleHash) {
+        int h1 = (int) shingleHash;
+        int h2 = (int) (shingleHash >>> 32) | 1;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            int value = h1 + i * h2;
+            if (value < signature[i]) {
+                signature[i] = value;
+            }
+        }
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[row];
+        }
+        return mix(key);
+    }
+
+    private static long mix(long x) {
+        // SplitMix64 finalizer
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        // Keep the smaller index as root so clusters are anchored at their first answer
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.classroom.grading;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Keyword rubric used to score free-text answers. An answer starts at the
+ * base score, earns a category's weight if it contains any of that
+ * category's terms, and earns the detail weight if it is longer than the
+ * detail length; the total is clamped to 0..100. Categories may carry a
+ * hint that is given as feedback when none of their terms appear.
+ *
+ * All terms are compiled into one {@link KeywordAutomaton}, so an answer is
+ * scanned once regardless of how many terms the rubric has.
+ *
+ * Rubric files are properties files:
+ * <pre>
+ * name = photosynthesis
+ * version = 3
+ * base.score = 50
+ * detail.length = 50
+ * detail.weight = 15
+ * categories = reasoning, examples
+ * category.reasoning.weight = 20
+ * category.reasoning.terms = because, therefore, as a result
+ * category.reasoning.hint = Consider explaining your reasoning.
+ * category.examples.weight = 15
+ * category.examples.terms = example, for instance
+ * </pre>
+ */
+public final class Rubric {
+    public static final int MAX_SCORE = 100;
+
+    private final String name;
+    private final String version;
+    private final String key;
+    private final int baseScore;
+    private final int detailLength;
+    private final int detailWeight;
+    private final List<Category> categories;
+    private final KeywordAutomaton automaton;
+
+    public Rubric(String name, String version, int baseScore, int detailLength, int detailWeight,
+                  List<Category> categories) {
+        this.name = name;
+        this.version = version;
+        this.key = name + "@" + version;
+        this.baseScore = baseScore;
+        this.detailLength = detailLength;
+        this.detailWeight = detailWeight;
+        this.categories = Collections.unmodifiableList(new ArrayList<>(categories));
+
+        List<String> terms = new ArrayList<>();
+        List<Integer> termCategories = new ArrayList<>();
+        for (int c = 0; c < categories.size(); c++) {
+            for (String term : categories.get(c).getTerms()) {
+                terms.add(term);
+                termCategories.add(c);
+            }
+        }
+        this.automaton = new KeywordAutomaton(terms.toArray(new String[0]),
+            termCategories.stream().mapToInt(Integer::intValue).toArray(), categories.size());
+    }
+
+    /**
+     * The built-in rubric: reasoning words (+20), examples (+15) and detail
+     * beyond 50 characters (+15) on a base of 50, with a hint when the
+     * answer never says "because".
+     */
+    public static Rubric defaultRubric() {
+        List<Category> categories = new ArrayList<>();
+        categories.add(new Category("reasoning", 20, null, "because", "therefore"));
+        categories.add(new Category("examples", 15, null, "example", "for instance"));
+        categories.add(new Category("explanation", 0, "Consider explaining your reasoning.", "because"));
+        return new Rubric("default", "1", 50, 50, 15, categories);
+    }
+
+    /**
+     * Loads a rubric from a properties file; see the class comment for the format.
+     */
+    public static Rubric load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        String fileName = path.getFileName().toString();
+        String defaultName = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+
+        List<Category> categories = new ArrayList<>();
+        for (String categoryName : splitList(properties.getProperty("categories", ""))) {
+            String prefix = "category." + categoryName + ".";
+            List<String> terms = splitList(properties.getProperty(prefix + "terms", ""));
+            if (terms.isEmpty()) {
+                throw new IOException("Rubric category '" + categoryName + "' has no terms in " + path);
+            }
+            categories.add(new Category(categoryName,
+                intProperty(properties, prefix + "weight", 0, path),
+                properties.getProperty(prefix + "hint"),
+                terms.toArray(new String[0])));
+        }
+
+        return new Rubric(
+            properties.getProperty("name", defaultName).trim(),
+            properties.getProperty("version", "1").trim(),
+            intProperty(properties, "base.score", 50, path),
+            intProperty(properties, "detail.length", 50, path),
+            intProperty(properties, "detail.weight", 15, path),
+            categories);
+    }
+
+    /**
+     * Scores one answer in a single scan.
+     */
+    public Evaluation evaluate(CharSequence answer) {
+        boolean[] found = new boolean[categories.size()];
+        automaton.match(answer, found);
+
+        int score = 0;
+        if (!isBlank(answer)) {
+            score = baseScore;
+            for (int c = 0; c < found.length; c++) {
+                if (found[c]) {
+                    score += categories.get(c).getWeight();
+                }
+            }
+            if (answer.length() > detailLength) {
+                score += detailWeight;
+            }
+            score = Math.max(0, Math.min(MAX_SCORE, score));
+        }
+
+        List<String> hints = new ArrayList<>();
+        for (int c = 0; c < found.length; c++) {
+            String hint = categories.get(c).getHint();
+            if (!found[c] && hint != null) {
+                hints.add(hint);
+            }
+        }
+        return new Evaluation(score, hints);
+    }
+
+    public String getName() { return name; }
+    public String getVersion() { return version; }
+    public int getBaseScore() { return baseScore; }
+    public List<Category> getCategories() { return categories; }
+
+    /**
+     * Name and version together, identifying which rubric produced a grade.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public int getTermCount() {
+        int count = 0;
+        for (Category category : categories) {
+            count += category.getTerms().length;
+        }
+        return count;
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+
+    private static int intProperty(Properties properties, String key, int defaultValue, Path path)
+            throws IOException {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid number for " + key + " in " + path + ": " + value);
+        }
+    }
+
+    /**
+     * A set of equivalent terms and the weight an answer earns by using any of them.
+     */
+    public static final class Category {
+        private final String name;
+        private final int weight;
+        private final String hint;
+        private final String[] terms;
+
+        /**
+         * @param hint feedback given when the answer contains none of the terms, or null
+         */
+        public Category(String name, int weight, String hint, String... terms) {
+            this.name = name;
+            this.weight = weight;
+            this.hint = hint;
+            this.terms = terms.clone();
+        }
+
+        public String getName() { return name; }
+        public int getWeight() { return weight; }
+        public String getHint() { return hint; }
+        public String[] getTerms() { return terms.clone(); }
+    }
+
+    /**
+     * Score of one answer and the hints for the categories it missed.
+     */
+    public static final class Evaluation {
+        private final int score;
+        private final List<String> hints;
+
+        Evaluation(int score, List<String> hints) {
+            this.score = score;
+            this.hints = Collections.unmodifiableList(hints);
+        }
+
+        public int getScore() { return score; }
+        public List<String> getHints() { return hints; }
+    }
+}
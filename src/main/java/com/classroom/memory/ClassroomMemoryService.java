@@ -12,7 +12,8 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Memory service for storing classroom-related data with context compaction
+ * Memory service for storing classroom-related data with context compaction.
+ * Public methods are synchronized so concurrent requests can share it.
  */
 public class ClassroomMemoryService {
     private static final Logger logger = LoggerFactory.getLogger(ClassroomMemoryService.class);
@@ -21,19 +22,22 @@ public class ClassroomMemoryService {
     private final MemoryBank memoryBank;
     private final Map<String, Object> sessionData;
     private final DateTimeFormatter formatter;
+    private final StudentIdDictionary studentIds;
+    private boolean retainGradingAnswers = true;
+    private long keySequence;
     
     public ClassroomMemoryService(MemoryBank memoryBank) {
         this.memoryBank = memoryBank;
         this.sessionData = new HashMap<>();
         this.formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        this.studentIds = new StudentIdDictionary();
         logger.info("ClassroomMemoryService initialized");
     }
     
-    public void storeLessonPlan(String lessonPlan) {
+    public synchronized void storeLessonPlan(String lessonPlan) {
         logger.info("Storing lesson plan in memory");
         
-        String timestamp = LocalDateTime.now().format(formatter);
-        String key = "lesson_plan_" + timestamp.replace(" ", "_").replace(":", "-");
+        String key = newKey("lesson_plan_");
         
         memoryBank.store(key, lessonPlan);
         sessionData.put("last_lesson_plan", lessonPlan);
@@ -41,11 +45,10 @@ public class ClassroomMemoryService {
         checkMemoryLimits();
     }
     
-    public void storeWorksheet(String worksheet) {
+    public synchronized void storeWorksheet(String worksheet) {
         logger.info("Storing worksheet in memory");
         
-        String timestamp = LocalDateTime.now().format(formatter);
-        String key = "worksheet_" + timestamp.replace(" ", "_").replace(":", "-");
+        String key = newKey("worksheet_");
         
         memoryBank.store(key, worksheet);
         sessionData.put("last_worksheet", worksheet);
@@ -53,11 +56,10 @@ public class ClassroomMemoryService {
         checkMemoryLimits();
     }
     
-    public void storeGradingResults(List<?> gradingResults) {
+    public synchronized void storeGradingResults(List<?> gradingResults) {
         logger.info("Storing grading results in memory");
         
-        String timestamp = LocalDateTime.now().format(formatter);
-        String key = "grading_results_" + timestamp.replace(" ", "_").replace(":", "-");
+        String key = newKey("grading_results_");
         
         memoryBank.store(key, gradingResults);
         sessionData.put("last_grading_results", gradingResults);
@@ -65,7 +67,52 @@ public class ClassroomMemoryService {
         checkMemoryLimits();
     }
     
-    public void storeStudentProgress(String studentName, Map<String, Object> progressData) {
+    /**
+     * Whether newly stored grading batches keep the students' answer text.
+     * Scores and feedback are always kept.
+     */
+    public synchronized void setRetainGradingAnswers(boolean retainGradingAnswers) {
+        this.retainGradingAnswers = retainGradingAnswers;
+    }
+    
+    /**
+     * Starts a compact grading batch whose student names are interned in
+     * this service's shared dictionary. Store it with
+     * {@link #storeGradingResults(GradingResultStore)}.
+     */
+    public synchronized GradingResultStore.Builder newGradingResultBuilder(int expectedSize) {
+        return new GradingResultStore.Builder(studentIds, expectedSize, retainGradingAnswers);
+    }
+    
+    public synchronized void storeGradingResults(GradingResultStore gradingResults) {
+        logger.info("Storing {} grading results in memory (~{} KB)",
+            gradingResults.size(), gradingResults.estimateHeapBytes() / 1024);
+        
+        String key = newKey("grading_results_");
+        
+        memoryBank.store(key, gradingResults);
+        sessionData.put("last_grading_store", gradingResults);
+        
+        checkMemoryLimits();
+    }
+    
+    /**
+     * Drops the answer text of every stored grading batch, keeping ids,
+     * scores and feedback. Returns the approximate number of bytes released.
+     */
+    public synchronized long evictGradingAnswers() {
+        long released = 0;
+        for (String key : memoryBank.getAllKeys()) {
+            Object value = memoryBank.retrieve(key);
+            if (value instanceof GradingResultStore) {
+                released += ((GradingResultStore) value).evictAnswers();
+            }
+        }
+        logger.info("Evicted stored grading answers, released ~{} KB", released / 1024);
+        return released;
+    }
+    
+    public synchronized void storeStudentProgress(String studentName, Map<String, Object> progressData) {
         logger.info("Storing student progress for: {}", studentName);
         
         String key = "student_progress_" + studentName.toLowerCase().replace(" ", "_");
@@ -85,30 +132,39 @@ public class ClassroomMemoryService {
         checkMemoryLimits();
     }
     
-    public String getLastLessonPlan() {
+    public synchronized String getLastLessonPlan() {
         return (String) sessionData.get("last_lesson_plan");
     }
     
-    public String getLastWorksheet() {
+    public synchronized String getLastWorksheet() {
         return (String) sessionData.get("last_worksheet");
     }
     
     @SuppressWarnings("unchecked")
-    public List<Object> getLastGradingResults() {
+    public synchronized List<Object> getLastGradingResults() {
         return (List<Object>) sessionData.get("last_grading_results");
     }
     
+    public synchronized GradingResultStore getLastGradingResultStore() {
+        return (GradingResultStore) sessionData.get("last_grading_store");
+    }
+    
     @SuppressWarnings("unchecked")
-    public Map<String, Object> getStudentProgress(String studentName) {
+    public synchronized Map<String, Object> getStudentProgress(String studentName) {
         String key = "student_progress_" + studentName.toLowerCase().replace(" ", "_");
         return (Map<String, Object>) memoryBank.retrieve(key);
     }
     
-    public List<String> getAllStoredLessonPlans() {
+    /**
+     * Stored lesson plans, oldest first.
+     */
+    public synchronized List<String> getAllStoredLessonPlans() {
         List<String> lessonPlans = new ArrayList<>();
         
-        // Retrieve all lesson plan keys
-        for (String key : memoryBank.getAllKeys()) {
+        // Retrieve all lesson plan keys in timestamp order
+        List<String> keys = new ArrayList<>(memoryBank.getAllKeys());
+        keys.sort(String::compareTo);
+        for (String key : keys) {
             if (key.startsWith("lesson_plan_")) {
                 String lessonPlan = (String) memoryBank.retrieve(key);
                 if (lessonPlan != null) {
@@ -120,7 +176,7 @@ public class ClassroomMemoryService {
         return lessonPlans;
     }
     
-    public String getMemorySummary() {
+    public synchronized String getMemorySummary() {
         StringBuilder summary = new StringBuilder();
         
         summary.append("MEMORY SUMMARY\n");
@@ -130,6 +186,7 @@ public class ClassroomMemoryService {
         int worksheetCount = 0;
         int gradingResultCount = 0;
         int studentProgressCount = 0;
+        long gradingResultBytes = 0;
         
         for (String key : memoryBank.getAllKeys()) {
             if (key.startsWith("lesson_plan_")) {
@@ -138,6 +195,10 @@ public class ClassroomMemoryService {
                 worksheetCount++;
             } else if (key.startsWith("grading_results_")) {
                 gradingResultCount++;
+                Object results = memoryBank.retrieve(key);
+                if (results instanceof GradingResultStore) {
+                    gradingResultBytes += ((GradingResultStore) results).estimateHeapBytes();
+                }
             } else if (key.startsWith("student_progress_")) {
                 studentProgressCount++;
             }
@@ -146,12 +207,25 @@ public class ClassroomMemoryService {
         summary.append("Stored Lesson Plans: ").append(lessonPlanCount).append("\n");
         summary.append("Stored Worksheets: ").append(worksheetCount).append("\n");
         summary.append("Stored Grading Results: ").append(gradingResultCount).append("\n");
+        if (gradingResultBytes > 0) {
+            summary.append("Grading Results Size: ~").append(gradingResultBytes / 1024).append(" KB\n");
+        }
         summary.append("Student Progress Records: ").append(studentProgressCount).append("\n");
         summary.append("Total Memory Entries: ").append(memoryBank.getAllKeys().size()).append("\n");
         
         return summary.toString();
     }
     
+    /**
+     * Unique key for a new entry: the timestamp plus a zero-padded sequence
+     * number, so entries stored within the same second do not overwrite
+     * each other and keys still sort in the order they were stored.
+     */
+    private String newKey(String prefix) {
+        String timestamp = LocalDateTime.now().format(formatter);
+        return prefix + timestamp.replace(" ", "_").replace(":", "-") + "_" + String.format("%012d", keySequence++);
+    }
+    
     private void checkMemoryLimits() {
         int currentSize = memoryBank.getAllKeys().size();
         
@@ -184,13 +258,13 @@ public class ClassroomMemoryService {
         logger.info("Context compaction completed. Removed {} entries", keysToRemove.size());
     }
     
-    public void clearMemory() {
+    public synchronized void clearMemory() {
         logger.info("Clearing all memory data");
         memoryBank.clear();
         sessionData.clear();
     }
     
-    public void exportMemoryData() {
+    public synchronized void exportMemoryData() {
         logger.info("Exporting memory data for backup");
         
         // In a real implementation, this would export to a file
@@ -0,0 +1,243 @@
+package com.classroom.memory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar, compact form of one graded batch as kept in classroom memory.
+ * Per result it stores an interned student id (int), the score (byte) and
+ * a feedback template id (char); the full feedback text is rebuilt on
+ * demand from its template and the score. Answer text lives in a separate
+ * UTF-8 region that can be evicted on its own when memory is tight, while
+ * ids, scores and feedback stay available.
+ */
+public final class GradingResultStore {
+    private static final String SCORE_PREFIX = "Score: ";
+    private static final String SCORE_SUFFIX = "/100";
+    private static final char RAW_FEEDBACK = Character.MAX_VALUE; // template id for rows stored verbatim
+
+    private final StudentIdDictionary studentIds;
+    private final int[] studentColumn;
+    private final byte[] scoreColumn;
+    private final char[] feedbackColumn;
+    private final String[] feedbackTemplates;
+    private final boolean[] templateEndsWithScore;
+    private final Map<Integer, String> rawFeedback;
+    private volatile AnswerRegion answers;
+
+    private GradingResultStore(StudentIdDictionary studentIds, int[] studentColumn, byte[] scoreColumn,
+                               char[] feedbackColumn, String[] feedbackTemplates, boolean[] templateEndsWithScore,
+                               Map<Integer, String> rawFeedback, AnswerRegion answers) {
+        this.studentIds = studentIds;
+        this.studentColumn = studentColumn;
+        this.scoreColumn = scoreColumn;
+        this.feedbackColumn = feedbackColumn;
+        this.feedbackTemplates = feedbackTemplates;
+        this.templateEndsWithScore = templateEndsWithScore;
+        this.rawFeedback = rawFeedback;
+        this.answers = answers;
+    }
+
+    public int size() {
+        return scoreColumn.length;
+    }
+
+    public String getStudentId(int row) {
+        return studentIds.name(studentColumn[row]);
+    }
+
+    public int getScore(int row) {
+        return scoreColumn[row];
+    }
+
+    public String getFeedback(int row) {
+        char template = feedbackColumn[row];
+        if (template == RAW_FEEDBACK) {
+            return rawFeedback.get(row);
+        }
+        return templateEndsWithScore[template]
+            ? feedbackTemplates[template] + SCORE_PREFIX + scoreColumn[row] + SCORE_SUFFIX
+            : feedbackTemplates[template];
+    }
+
+    /**
+     * The student's answer, or null if answers were not kept or have been evicted.
+     */
+    public String getAnswer(int row) {
+        AnswerRegion region = answers;
+        return region == null ? null : region.get(row);
+    }
+
+    public boolean hasAnswers() {
+        return answers != null;
+    }
+
+    /**
+     * Drops the answer text; returns the approximate number of bytes released.
+     */
+    public long evictAnswers() {
+        AnswerRegion region = answers;
+        answers = null;
+        return region == null ? 0 : region.estimateBytes();
+    }
+
+    public int getFeedbackTemplateCount() {
+        return feedbackTemplates.length;
+    }
+
+    /**
+     * Approximate heap footprint of this batch, excluding the shared student-name dictionary.
+     */
+    public long estimateHeapBytes() {
+        long bytes = 64 + 16L + 4L * studentColumn.length + 16 + scoreColumn.length
+            + 16 + 2L * feedbackColumn.length;
+        bytes += 16 + templateEndsWithScore.length;
+        for (String template : feedbackTemplates) {
+            bytes += 56 + template.length();
+        }
+        for (String raw : rawFeedback.values()) {
+            bytes += 88 + raw.length();
+        }
+        AnswerRegion region = answers;
+        return region == null ? bytes : bytes + region.estimateBytes();
+    }
+
+    /**
+     * Answer text for all rows packed into one UTF-8 byte array with row offsets.
+     */
+    private static final class AnswerRegion {
+        private final byte[] text;
+        private final int[] offsets;
+
+        AnswerRegion(byte[] text, int[] offsets) {
+            this.text = text;
+            this.offsets = offsets;
+        }
+
+        String get(int row) {
+            return new String(text, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+        }
+
+        long estimateBytes() {
+            return 16 + text.length + 16 + 4L * offsets.length;
+        }
+    }
+
+    /**
+     * Accumulates one batch row by row. Student names are interned in the
+     * shared dictionary; feedback is split into a template and the score.
+     */
+    public static final class Builder {
+        private final StudentIdDictionary studentIds;
+        private final boolean keepAnswers;
+        private int[] studentColumn;
+        private byte[] scoreColumn;
+        private char[] feedbackColumn;
+        private final Map<String, Integer> templateIds = new HashMap<>();
+        private final List<String> templates = new ArrayList<>();
+        private final List<Boolean> templateEndsWithScore = new ArrayList<>();
+        private final Map<Integer, String> rawFeedback = new HashMap<>();
+        private byte[] answerText;
+        private int[] answerOffsets;
+        private int answerLength;
+        private int size;
+
+        Builder(StudentIdDictionary studentIds, int expectedSize, boolean keepAnswers) {
+            int capacity = Math.max(16, expectedSize);
+            this.studentIds = studentIds;
+            this.keepAnswers = keepAnswers;
+            this.studentColumn = new int[capacity];
+            this.scoreColumn = new byte[capacity];
+            this.feedbackColumn = new char[capacity];
+            if (keepAnswers) {
+                this.answerText = new byte[capacity * 32];
+                this.answerOffsets = new int[capacity + 1];
+            }
+        }
+
+        /**
+         * @param score 0 to 100
+         */
+        public void add(String studentId, String answer, int score, String feedback) {
+            if (score < 0 || score > 100) {
+                throw new IllegalArgumentException("Score out of range: " + score);
+            }
+            if (size == scoreColumn.length) {
+                grow();
+            }
+
+            studentColumn[size] = studentIds.intern(studentId);
+            scoreColumn[size] = (byte) score;
+            feedbackColumn[size] = templateId(feedback, score);
+
+            if (keepAnswers) {
+                byte[] bytes = (answer == null ? "" : answer).getBytes(StandardCharsets.UTF_8);
+                if (answerLength + bytes.length > answerText.length) {
+                    answerText = Arrays.copyOf(answerText, Math.max(answerText.length * 2, answerLength + bytes.length));
+                }
+                System.arraycopy(bytes, 0, answerText, answerLength, bytes.length);
+                answerLength += bytes.length;
+                answerOffsets[size + 1] = answerLength;
+            }
+            size++;
+        }
+
+        public GradingResultStore build() {
+            AnswerRegion answers = keepAnswers
+                ? new AnswerRegion(Arrays.copyOf(answerText, answerLength), Arrays.copyOf(answerOffsets, size + 1))
+                : null;
+            boolean[] endsWithScore = new boolean[templates.size()];
+            for (int i = 0; i < endsWithScore.length; i++) {
+                endsWithScore[i] = templateEndsWithScore.get(i);
+            }
+            return new GradingResultStore(studentIds,
+                Arrays.copyOf(studentColumn, size),
+                Arrays.copyOf(scoreColumn, size),
+                Arrays.copyOf(feedbackColumn, size),
+                templates.toArray(new String[0]),
+                endsWithScore,
+                rawFeedback,
+                answers);
+        }
+
+        /**
+         * Feedback ending in "Score: N/100" for the row's own score is stored
+         * as a shared template (the text before it) with the score as its
+         * parameter; other feedback becomes a template on its own.
+         */
+        private char templateId(String feedback, int score) {
+            String scoreText = SCORE_PREFIX + score + SCORE_SUFFIX;
+            boolean endsWithScore = feedback.endsWith(scoreText);
+            String template = endsWithScore ? feedback.substring(0, feedback.length() - scoreText.length()) : feedback;
+            String key = (endsWithScore ? '+' : '-') + template;
+
+            Integer id = templateIds.get(key);
+            if (id == null) {
+                if (templates.size() == RAW_FEEDBACK) {
+                    // Dictionary full: keep this row's text as is
+                    rawFeedback.put(size, feedback);
+                    return RAW_FEEDBACK;
+                }
+                id = templates.size();
+                templateIds.put(key, id);
+                templates.add(template);
+                templateEndsWithScore.add(endsWithScore);
+            }
+            return (char) id.intValue();
+        }
+
+        private void grow() {
+            int capacity = scoreColumn.length * 2;
+            studentColumn = Arrays.copyOf(studentColumn, capacity);
+            scoreColumn = Arrays.copyOf(scoreColumn, capacity);
+            feedbackColumn = Arrays.copyOf(feedbackColumn, capacity);
+            if (keepAnswers) {
+                answerOffsets = Arrays.copyOf(answerOffsets, capacity + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.classroom.memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns student names to small int ids so every stored grading batch
+ * refers to one shared copy of each name. Thread-safe, since builders of
+ * concurrent grading batches intern into the same dictionary.
+ */
+public final class StudentIdDictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public synchronized int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    public synchronized String name(int id) {
+        return names.get(id);
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+}
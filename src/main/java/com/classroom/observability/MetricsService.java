@@ -38,6 +38,11 @@ public class MetricsService {
         metricsLogger.info("COUNTER {} incremented to {}", name, counters.get(name).get());
     }
     
+    public void incrementCounter(String name, long delta) {
+        long value = counters.computeIfAbsent(name, k -> new AtomicLong(0)).addAndGet(delta);
+        metricsLogger.info("COUNTER {} incremented by {} to {}", name, delta, value);
+    }
+    
     public void recordTimer(String name, long durationMs) {
         timers.computeIfAbsent(name, k -> new AtomicLong(0)).set(durationMs);
         metricsLogger.info("TIMER {} recorded: {}ms", name, durationMs);
@@ -61,6 +66,50 @@ public class MetricsService {
         recordTimer("grading_duration", durationMs);
     }
     
+    /**
+     * Records one graded batch: how many responses, how long it took and how many workers graded it.
+     */
+    public void recordGradingBatch(int responses, long durationMs, int parallelism) {
+        incrementCounter("grading_batches");
+        incrementCounter("graded_responses", responses);
+        recordTimer("grading_batch_duration", durationMs);
+        setGauge("grading_parallelism", parallelism);
+        setGauge("grading_throughput_per_sec", durationMs > 0 ? responses * 1000L / durationMs : responses * 1000L);
+    }
+    
+    /**
+     * Records grading memo lookups for one batch; the gauge is that batch's hit rate.
+     */
+    public void recordGradingMemo(long hits, long misses) {
+        if (hits + misses == 0) {
+            return;
+        }
+        incrementCounter("grading_memo_hits", hits);
+        incrementCounter("grading_memo_misses", misses);
+        setGauge("grading_memo_hit_rate_pct", hits * 100 / (hits + misses));
+    }
+    
+    /**
+     * Records one batch of teacher requests: its size, wall-clock duration
+     * and the latency percentiles of its requests, measured from batch start.
+     */
+    public void recordRequestBatch(int requests, long durationMs, long p50LatencyMs, long p95LatencyMs, long maxLatencyMs) {
+        incrementCounter("request_batches");
+        incrementCounter("batched_requests", requests);
+        recordTimer("request_batch_duration", durationMs);
+        setGauge("request_batch_throughput_per_sec", durationMs > 0 ? requests * 1000L / durationMs : requests * 1000L);
+        setGauge("request_batch_latency_p50_ms", p50LatencyMs);
+        setGauge("request_batch_latency_p95_ms", p95LatencyMs);
+        setGauge("request_batch_latency_max_ms", maxLatencyMs);
+    }
+    
+    /**
+     * Counts a request that either started its own computation or joined an identical one in flight.
+     */
+    public void recordSingleFlight(String name, boolean coalesced) {
+        incrementCounter(name + (coalesced ? "_coalesced" : "_executed"));
+    }
+    
     public String getMetricsReport() {
         StringBuilder report = new StringBuilder();
         report.append("METRICS REPORT\n==============\n\n");
@@ -73,6 +122,12 @@ public class MetricsService {
         timers.forEach((name, value) -> 
             report.append("  ").append(name).append(": ").append(value.get()).append("\n"));
         
+        if (!gauges.isEmpty()) {
+            report.append("\nGAUGES:\n");
+            gauges.forEach((name, value) -> 
+                report.append("  ").append(name).append(": ").append(value.get()).append("\n"));
+        }
+        
         return report.toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,243 @@
+package com.classroom.tools;
+
+import com.classroom.concurrent.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Analyses every score file under a directory or matching a glob in
+ * parallel. Each file is loaded exactly once on a fork-join worker; the
+ * per-file partial aggregates are merged pairwise as the task tree joins,
+ * so no shared accumulator or lock is involved.
+ */
+public class DirectoryScoreAnalyzer {
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryScoreAnalyzer.class);
+    private static final String SCORE_FILE_GLOB = "glob:*.{json,jsonl,ndjson,csv,csnap,JSON,JSONL,NDJSON,CSV,CSNAP}";
+
+    /**
+     * Loads one score file into a fresh accumulator, giving up once the deadline expires.
+     */
+    @FunctionalInterface
+    public interface ScoreFileLoader {
+        ScoreStatistics load(Path path, Deadline deadline) throws Exception;
+    }
+
+    private final ForkJoinPool pool;
+    private final ScoreFileLoader loader;
+
+    public DirectoryScoreAnalyzer(ForkJoinPool pool, ScoreFileLoader loader) {
+        this.pool = pool;
+        this.loader = loader;
+    }
+
+    /**
+     * True if the target names a directory or contains glob characters.
+     */
+    public static boolean isMultiFileTarget(String target) {
+        return containsGlob(target) || Files.isDirectory(Paths.get(target));
+    }
+
+    public Result analyze(String target) throws IOException {
+        return analyze(target, Deadline.none());
+    }
+
+    /**
+     * Like {@link #analyze(String)}; once the deadline expires, files not yet
+     * started are skipped and the analysis fails with a cancellation.
+     */
+    public Result analyze(String target, Deadline deadline) throws IOException {
+        List<Path> files = resolveFiles(target);
+        logger.info("Analyzing {} score files for {}", files.size(), target);
+
+        FileSummary[] summaries = new FileSummary[files.size()];
+        if (files.isEmpty()) {
+            return new Result(null, summaries);
+        }
+
+        ScoreStatistics combined = pool.invoke(new FileTask(files, summaries, 0, files.size(), deadline));
+        return new Result(combined, summaries);
+    }
+
+    /**
+     * Expands the target into a sorted, de-duplicated list of real file paths,
+     * so a file reachable through several links is still read only once.
+     */
+    List<Path> resolveFiles(String target) throws IOException {
+        Path base;
+        PathMatcher matcher;
+        int maxDepth;
+
+        if (containsGlob(target)) {
+            base = globBase(target);
+            String pattern = base.relativize(Paths.get(target).normalize()).toString();
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            maxDepth = pattern.contains("**") ? Integer.MAX_VALUE : Paths.get(pattern).getNameCount();
+        } else {
+            base = Paths.get(target);
+            matcher = FileSystems.getDefault().getPathMatcher(SCORE_FILE_GLOB);
+            maxDepth = 1;
+        }
+
+        TreeSet<Path> files = new TreeSet<>();
+        Path root = base;
+        boolean matchFileNameOnly = !containsGlob(target);
+        try (Stream<Path> stream = Files.walk(root, maxDepth)) {
+            stream.filter(Files::isRegularFile)
+                  .filter(path -> matcher.matches(matchFileNameOnly ? path.getFileName() : root.relativize(path)))
+                  .forEach(path -> {
+                      try {
+                          files.add(path.toRealPath());
+                      } catch (IOException e) {
+                          logger.warn("Skipping unreadable file {}", path);
+                      }
+                  });
+        }
+
+        return new ArrayList<>(files);
+    }
+
+    private static boolean containsGlob(String target) {
+        return target.indexOf('*') >= 0 || target.indexOf('?') >= 0
+            || target.indexOf('[') >= 0 || target.indexOf('{') >= 0;
+    }
+
+    private static Path globBase(String target) {
+        Path normalized = Paths.get(target).normalize();
+        Path base = normalized.isAbsolute() ? normalized.getRoot() : Paths.get("");
+        for (Path segment : normalized) {
+            if (containsGlob(segment.toString())) {
+                break;
+            }
+            base = base.resolve(segment);
+        }
+        return base.toString().isEmpty() ? Paths.get(".") : base;
+    }
+
+    private final class FileTask extends RecursiveTask<ScoreStatistics> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+        private final FileSummary[] summaries;
+        private final int from;
+        private final int to;
+        private final Deadline deadline;
+
+        FileTask(List<Path> files, FileSummary[] summaries, int from, int to, Deadline deadline) {
+            this.files = files;
+            this.summaries = summaries;
+            this.from = from;
+            this.to = to;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected ScoreStatistics compute() {
+            if (to - from == 1) {
+                return analyzeFile(from);
+            }
+
+            int mid = (from + to) >>> 1;
+            FileTask left = new FileTask(files, summaries, from, mid, deadline);
+            FileTask right = new FileTask(files, summaries, mid, to, deadline);
+            left.fork();
+            ScoreStatistics rightStatistics = right.compute();
+            ScoreStatistics leftStatistics = left.join();
+
+            if (leftStatistics == null) return rightStatistics;
+            if (rightStatistics == null) return leftStatistics;
+            leftStatistics.merge(rightStatistics);
+            return leftStatistics;
+        }
+
+        private ScoreStatistics analyzeFile(int index) {
+            Path file = files.get(index);
+            deadline.check();
+            try {
+                ScoreStatistics statistics = loader.load(file, deadline);
+                // Each task owns its slot, so the array needs no synchronisation
+                summaries[index] = FileSummary.of(file, statistics);
+                return statistics;
+            } catch (CancellationException e) {
+                // The deadline stops the whole analysis, not just this file
+                throw e;
+            } catch (Exception e) {
+                logger.warn("Failed to analyze {}: {}", file, e.getMessage());
+                summaries[index] = FileSummary.failed(file, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Per-file breakdown line; computed before the file's partial is merged away.
+     */
+    public static final class FileSummary {
+        private final Path path;
+        private final long count;
+        private final double mean;
+        private final double median;
+        private final double min;
+        private final double max;
+        private final String error;
+
+        private FileSummary(Path path, long count, double mean, double median, double min, double max, String error) {
+            this.path = path;
+            this.count = count;
+            this.mean = mean;
+            this.median = median;
+            this.min = min;
+            this.max = max;
+            this.error = error;
+        }
+
+        static FileSummary of(Path path, ScoreStatistics statistics) {
+            double median = statistics.isEmpty() ? 0.0 : statistics.getMedian();
+            return new FileSummary(path, statistics.getCount(), statistics.getMean(), median,
+                statistics.getMin(), statistics.getMax(), null);
+        }
+
+        static FileSummary failed(Path path, String error) {
+            String message = error == null ? "unknown error" : error.lines().findFirst().orElse(error);
+            return new FileSummary(path, 0, 0, 0, 0, 0, message);
+        }
+
+        public Path getPath() { return path; }
+        public long getCount() { return count; }
+        public double getMean() { return mean; }
+        public double getMedian() { return median; }
+        public double getMin() { return min; }
+        public double getMax() { return max; }
+        public String getError() { return error; }
+        public boolean isFailed() { return error != null; }
+    }
+
+    public static final class Result {
+        private final ScoreStatistics combined;
+        private final FileSummary[] fileSummaries;
+
+        Result(ScoreStatistics combined, FileSummary[] fileSummaries) {
+            this.combined = combined;
+            this.fileSummaries = fileSummaries;
+        }
+
+        /**
+         * School-wide aggregate, or null if no file could be read.
+         */
+        public ScoreStatistics getCombined() { return combined; }
+        public FileSummary[] getFileSummaries() { return fileSummaries; }
+    }
+}
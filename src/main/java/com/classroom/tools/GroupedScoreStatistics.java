@@ -0,0 +1,179 @@
+package com.classroom.tools;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass score statistics per group (section, teacher, subject...).
+ *
+ * Group labels are dictionary-encoded to dense int ids through a primitive
+ * open-addressing table, and every aggregate lives in a parallel primitive
+ * array indexed by that id. Memory is proportional to the number of groups,
+ * not the number of rows. Medians come from one small quantile sketch per
+ * group.
+ */
+public class GroupedScoreStatistics {
+    private static final int INITIAL_GROUPS = 16;
+    private static final int GRADES = 5;
+    private static final int EMPTY = -1;
+
+    private final double rankError;
+
+    // Dictionary: open-addressing table of group ids, keyed by label
+    private int[] slots;
+    private int[] slotHashes;
+    private String[] labels;
+    private int groupCount;
+
+    // Aggregates, indexed by group id
+    private long[] counts;
+    private double[] sums;
+    private double[] mins;
+    private double[] maxs;
+    private double[] means;
+    private double[] m2s;
+    private long[] gradeCounts;
+    private QuantileSketch[] sketches;
+
+    /**
+     * @param rankError normalized rank error of the per-group median sketches
+     */
+    public GroupedScoreStatistics(double rankError) {
+        this.rankError = rankError;
+        this.slots = new int[INITIAL_GROUPS * 2];
+        this.slotHashes = new int[INITIAL_GROUPS * 2];
+        Arrays.fill(slots, EMPTY);
+        this.labels = new String[INITIAL_GROUPS];
+        this.counts = new long[INITIAL_GROUPS];
+        this.sums = new double[INITIAL_GROUPS];
+        this.mins = new double[INITIAL_GROUPS];
+        this.maxs = new double[INITIAL_GROUPS];
+        this.means = new double[INITIAL_GROUPS];
+        this.m2s = new double[INITIAL_GROUPS];
+        this.gradeCounts = new long[INITIAL_GROUPS * GRADES];
+        this.sketches = new QuantileSketch[INITIAL_GROUPS];
+    }
+
+    public void add(String group, double score) {
+        int id = groupId(group);
+
+        long count = ++counts[id];
+        sums[id] += score;
+        if (score < mins[id]) mins[id] = score;
+        if (score > maxs[id]) maxs[id] = score;
+
+        double delta = score - means[id];
+        means[id] += delta / count;
+        m2s[id] += delta * (score - means[id]);
+
+        gradeCounts[id * GRADES + ScoreStatistics.gradeBucket(score)]++;
+        sketches[id].update(score);
+    }
+
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    public String getLabel(int group) { return labels[group]; }
+    public long getCount(int group) { return counts[group]; }
+    public double getMean(int group) { return means[group]; }
+    public double getMin(int group) { return mins[group]; }
+    public double getMax(int group) { return maxs[group]; }
+    public double getMedian(int group) { return sketches[group].getQuantile(0.5); }
+    public long getGradeCount(int group, int grade) { return gradeCounts[group * GRADES + grade]; }
+    public double getRankError() { return groupCount == 0 ? 0.0 : sketches[0].getRankError(); }
+
+    public double getStandardDeviation(int group) {
+        return counts[group] == 0 ? 0.0 : Math.sqrt(m2s[group] / counts[group]);
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < groupCount; i++) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    /**
+     * Group ids ordered by label, for stable reports.
+     */
+    public int[] groupsByLabel() {
+        Integer[] order = new Integer[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> labels[a].compareTo(labels[b]));
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    private int groupId(String label) {
+        int hash = mix(label.hashCode());
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+
+        while (slots[slot] != EMPTY) {
+            int id = slots[slot];
+            if (slotHashes[slot] == hash && labels[id].equals(label)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = newGroup(label);
+        slots[slot] = id;
+        slotHashes[slot] = hash;
+        if (groupCount * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private int newGroup(String label) {
+        if (groupCount == labels.length) {
+            int capacity = labels.length * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            sums = Arrays.copyOf(sums, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxs = Arrays.copyOf(maxs, capacity);
+            means = Arrays.copyOf(means, capacity);
+            m2s = Arrays.copyOf(m2s, capacity);
+            gradeCounts = Arrays.copyOf(gradeCounts, capacity * GRADES);
+            sketches = Arrays.copyOf(sketches, capacity);
+        }
+
+        int id = groupCount++;
+        labels[id] = label;
+        mins[id] = Double.POSITIVE_INFINITY;
+        maxs[id] = Double.NEGATIVE_INFINITY;
+        sketches[id] = QuantileSketch.withRankError(rankError);
+        return id;
+    }
+
+    private void rehash() {
+        int[] newSlots = new int[slots.length * 2];
+        int[] newHashes = new int[newSlots.length];
+        Arrays.fill(newSlots, EMPTY);
+        int mask = newSlots.length - 1;
+
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != EMPTY) {
+                int slot = slotHashes[i] & mask;
+                while (newSlots[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                newSlots[slot] = slots[i];
+                newHashes[slot] = slotHashes[i];
+            }
+        }
+
+        slots = newSlots;
+        slotHashes = newHashes;
+    }
+
+    private static int mix(int hash) {
+        // Spread String.hashCode bits so linear probing does not cluster
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,181 @@
+package com.classroom.tools;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.DoubleConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Streaming reader for student score exports built on Jackson's token stream.
+ * Supports a top-level array, the {"students":[...]} wrapper and JSON lines
+ * (one record per line). The document is never materialised as a tree, so
+ * memory use does not grow with the size of the file.
+ *
+ * Score-only reads skip identifier fields entirely; record reads also pick
+ * up the student's id or name for callers that need to keep it, and grouped
+ * reads pick up one grouping field such as section or teacher instead.
+ */
+public class JsonScoreReader {
+    private static final Logger logger = LoggerFactory.getLogger(JsonScoreReader.class);
+
+    private static final String SCORE_FIELD = "score";
+    private static final String STUDENTS_FIELD = "students";
+    private static final Set<String> ID_FIELDS = Set.of("id", "studentId", "student_id", "student", "name");
+    private static final Predicate<String> IS_ID_FIELD = ID_FIELDS::contains;
+
+    private final JsonFactory jsonFactory;
+
+    public JsonScoreReader(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Streams every score in the file to the consumer and returns how many were read.
+     */
+    public long read(Path path, DoubleConsumer consumer) throws IOException {
+        return readRecords(path, null, (id, score) -> consumer.accept(score));
+    }
+
+    /**
+     * Streams every score in the given JSON text to the consumer and returns how many were read.
+     */
+    public long read(String json, DoubleConsumer consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return read(parser, null, (id, score) -> consumer.accept(score));
+        }
+    }
+
+    /**
+     * Streams every score in the UTF-8 JSON held in bytes[offset, offset + length)
+     * to the consumer and returns how many were read.
+     */
+    public long read(byte[] bytes, int offset, int length, DoubleConsumer consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(bytes, offset, length)) {
+            return read(parser, null, (id, score) -> consumer.accept(score));
+        }
+    }
+
+    /**
+     * Streams every record in the file, with its student id or name, to the handler.
+     */
+    public long readRecords(Path path, ScoreRecordHandler handler) throws IOException {
+        return readRecords(path, IS_ID_FIELD, handler);
+    }
+
+    /**
+     * Streams every record in the file to the handler with the value of the
+     * given grouping field (matched case-insensitively) in place of the
+     * student id; records without that field get a null group.
+     */
+    public long readGroups(Path path, String groupField, ScoreRecordHandler handler) throws IOException {
+        return readRecords(path, field -> field.equalsIgnoreCase(groupField), handler);
+    }
+
+    private long readRecords(Path path, Predicate<String> keyField, ScoreRecordHandler handler) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(path.toFile())) {
+            return read(parser, keyField, handler);
+        }
+    }
+
+    private long read(JsonParser parser, Predicate<String> keyField, ScoreRecordHandler handler) throws IOException {
+        long count = 0;
+        JsonToken token;
+
+        // JSON lines are simply a sequence of root-level values
+        while ((token = parser.nextToken()) != null) {
+            if (token == JsonToken.START_ARRAY) {
+                count += readArray(parser, keyField, handler);
+            } else if (token == JsonToken.START_OBJECT) {
+                count += readObject(parser, true, keyField, handler);
+            } else if (token.isNumeric()) {
+                handler.accept(null, parser.getDoubleValue());
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private long readArray(JsonParser parser, Predicate<String> keyField, ScoreRecordHandler handler) throws IOException {
+        long count = 0;
+        JsonToken token;
+
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                count += readObject(parser, false, keyField, handler);
+            } else if (token.isNumeric()) {
+                handler.accept(null, parser.getDoubleValue());
+                count++;
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Reads one object. At the root it may also be a {"students":[...]} wrapper;
+     * otherwise it is a single student record, reported with the first field
+     * accepted by keyField (null when keys are not wanted).
+     */
+    private long readObject(JsonParser parser, boolean root, Predicate<String> keyField,
+                            ScoreRecordHandler handler) throws IOException {
+        long count = 0;
+        String key = null;
+        double score = 0.0;
+        boolean hasScore = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (root && STUDENTS_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+                count += readArray(parser, keyField, handler);
+            } else if (SCORE_FIELD.equals(field)) {
+                double parsed = parseScore(parser, value);
+                if (!Double.isNaN(parsed)) {
+                    score = parsed;
+                    hasScore = true;
+                }
+            } else if (keyField != null && key == null && value.isScalarValue() && keyField.test(field)) {
+                key = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (hasScore) {
+            handler.accept(key, score);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the score at the current token, or NaN if it is missing or not numeric.
+     */
+    private double parseScore(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Double.parseDouble(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid score format: {}", parser.getText());
+                return Double.NaN;
+            }
+        }
+
+        parser.skipChildren();
+        return Double.NaN;
+    }
+}
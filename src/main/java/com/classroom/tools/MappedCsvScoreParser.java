@@ -0,0 +1,394 @@
+package com.classroom.tools;
+
+import com.classroom.concurrent.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Parallel CSV score parser for large gradebooks. The file is memory-mapped
+ * in line-aligned chunks, each chunk is parsed on a fork-join worker that
+ * reads the last-column score straight from bytes, and the per-chunk
+ * {@link ScoreStatistics} are merged at the end. The first line is treated
+ * as a header, matching the opencsv path.
+ *
+ * Quoted fields may contain commas but not line breaks, since chunks are
+ * split at raw newlines. A chunk that meets a newline inside quotes, or
+ * ends inside quotes, flags the file and {@link #parse} returns null so
+ * the caller can fall back to a record-aware parser.
+ */
+public class MappedCsvScoreParser {
+    private static final Logger logger = LoggerFactory.getLogger(MappedCsvScoreParser.class);
+
+    private static final long MIN_CHUNK_SIZE = 1L << 20;       // 1 MB
+    private static final long MAX_CHUNK_SIZE = 256L << 20;     // 256 MB, well below the 2 GB mapping limit
+    private static final int MAX_FAST_DIGITS = 18;
+    private static final int LINES_PER_DEADLINE_CHECK = 1 << 16;
+    private static final double[] POWERS_OF_TEN = new double[MAX_FAST_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    public MappedCsvScoreParser(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public ScoreStatistics parse(Path path) throws IOException {
+        return parse(path, ScoreStatistics::new);
+    }
+
+    /**
+     * @param statisticsFactory creates the accumulator used for each chunk
+     * @return the merged statistics, or null if a quoted field spans a line break
+     */
+    public ScoreStatistics parse(Path path, Supplier<ScoreStatistics> statisticsFactory) throws IOException {
+        return parse(path, statisticsFactory, Deadline.none());
+    }
+
+    /**
+     * Like {@link #parse(Path, Supplier)}; chunks not yet started when the
+     * deadline expires are skipped, chunks being parsed stop within
+     * {@value #LINES_PER_DEADLINE_CHECK} lines and drop what they have read,
+     * and the parse fails with a cancellation.
+     *
+     * @return the merged statistics, or null if a quoted field spans a line break
+     */
+    public ScoreStatistics parse(Path path, Supplier<ScoreStatistics> statisticsFactory, Deadline deadline)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = nextLineStart(channel, 0, size);
+            if (dataStart >= size) {
+                return statisticsFactory.get();
+            }
+
+            long[] boundaries = chunkBoundaries(channel, dataStart, size);
+            logger.info("Parsing {} bytes of CSV in {} mapped chunks", size - dataStart, boundaries.length - 1);
+
+            AtomicLong invalidRows = new AtomicLong();
+            AtomicBoolean multiLineFields = new AtomicBoolean();
+            ScoreStatistics statistics = pool.invoke(new ChunkTask(channel, boundaries, 0, boundaries.length - 1,
+                statisticsFactory, invalidRows, multiLineFields, deadline));
+
+            if (multiLineFields.get()) {
+                logger.info("{} has line breaks inside quoted fields, which mapped parsing does not support", path);
+                return null;
+            }
+
+            if (invalidRows.get() > 0) {
+                logger.warn("Skipped {} rows with an invalid score format in {}", invalidRows.get(), path);
+            }
+            return statistics;
+        }
+    }
+
+    private long[] chunkBoundaries(FileChannel channel, long dataStart, long size) throws IOException {
+        long dataLength = size - dataStart;
+        long target = dataLength / Math.max(1, pool.getParallelism() * 4L);
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, target));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(dataStart);
+        long position = dataStart;
+        while (position < size) {
+            long next = position + chunkSize >= size ? size : nextLineStart(channel, position + chunkSize, size);
+            boundaries.add(next);
+            position = next;
+        }
+
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Returns the offset just past the first '\n' at or after {@code from}, or {@code size}.
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+
+        return size;
+    }
+
+    private static final class ChunkTask extends RecursiveTask<ScoreStatistics> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+        private final Supplier<ScoreStatistics> statisticsFactory;
+        private final AtomicLong invalidRows;
+        private final AtomicBoolean multiLineFields;
+        private final Deadline deadline;
+
+        ChunkTask(FileChannel channel, long[] boundaries, int from, int to, Supplier<ScoreStatistics> statisticsFactory,
+                  AtomicLong invalidRows, AtomicBoolean multiLineFields, Deadline deadline) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+            this.statisticsFactory = statisticsFactory;
+            this.invalidRows = invalidRows;
+            this.multiLineFields = multiLineFields;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected ScoreStatistics compute() {
+            if (to - from == 1) {
+                return parseChunk();
+            }
+
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(channel, boundaries, from, mid,
+                statisticsFactory, invalidRows, multiLineFields, deadline);
+            ChunkTask right = new ChunkTask(channel, boundaries, mid, to,
+                statisticsFactory, invalidRows, multiLineFields, deadline);
+            left.fork();
+            ScoreStatistics rightStatistics = right.compute();
+            ScoreStatistics leftStatistics = left.join();
+            leftStatistics.merge(rightStatistics);
+            return leftStatistics;
+        }
+
+        private ScoreStatistics parseChunk() {
+            deadline.check();
+            long start = boundaries[from];
+            long length = boundaries[to] - start;
+            ScoreStatistics statistics = statisticsFactory.get();
+            if (multiLineFields.get()) {
+                // Another chunk already found the file unsuitable; its result will be discarded
+                return statistics;
+            }
+            MappedByteBuffer buffer;
+
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to map CSV chunk at offset " + start, e);
+            }
+
+            int limit = (int) length;
+            int lineStart = 0;
+            int fieldStart = 0;
+            boolean inQuotes = false;
+            long invalid = 0;
+            int linesUntilDeadlineCheck = LINES_PER_DEADLINE_CHECK;
+
+            for (int i = 0; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == ',' && !inQuotes) {
+                    fieldStart = i + 1;
+                } else if (b == '\n') {
+                    if (inQuotes) {
+                        multiLineFields.set(true);
+                        return statistics;
+                    }
+                    invalid += acceptField(buffer, lineStart, fieldStart, i, statistics);
+                    lineStart = i + 1;
+                    fieldStart = lineStart;
+                    inQuotes = false;
+                    if (--linesUntilDeadlineCheck == 0) {
+                        // A chunk can be hundreds of megabytes; throwing discards its partial statistics
+                        deadline.check();
+                        linesUntilDeadlineCheck = LINES_PER_DEADLINE_CHECK;
+                    }
+                }
+            }
+            if (inQuotes) {
+                // Only possible when a quoted field runs past the end of the chunk
+                multiLineFields.set(true);
+                return statistics;
+            }
+            if (lineStart < limit) {
+                invalid += acceptField(buffer, lineStart, fieldStart, limit, statistics);
+            }
+
+            if (invalid > 0) {
+                invalidRows.addAndGet(invalid);
+            }
+            return statistics;
+        }
+    }
+
+    /**
+     * Parses the field in [fieldStart, end) into the accumulator.
+     * Returns 1 if the row had a score that could not be parsed, 0 otherwise.
+     */
+    private static int acceptField(ByteBuffer buffer, int lineStart, int fieldStart, int end, ScoreStatistics statistics) {
+        int from = fieldStart;
+        int to = end;
+
+        while (to > from && isTrimmable(buffer.get(to - 1))) to--;
+        while (from < to && isTrimmable(buffer.get(from))) from++;
+
+        if (from == to) {
+            // Blank lines are ignored; a row with an empty score column is invalid
+            return lineHasContent(buffer, lineStart, end) ? 1 : 0;
+        }
+
+        double score = parseDouble(buffer, from, to);
+        if (Double.isNaN(score)) {
+            return 1;
+        }
+
+        statistics.add(score);
+        return 0;
+    }
+
+    private static boolean isTrimmable(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '"';
+    }
+
+    private static boolean isTrimmable(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '"';
+    }
+
+    /**
+     * True for a record parsed from a blank line, which {@link #parse}
+     * ignores; for record-aware parsers that must count rows the same way.
+     */
+    static boolean isBlankRecord(String[] record) {
+        if (record.length == 0) {
+            return true;
+        }
+        if (record.length > 1) {
+            return false;
+        }
+        return record[0].chars().allMatch(c -> c == ' ' || c == '\t' || c == '\r');
+    }
+
+    /**
+     * Reads a score field the way {@link #parse} does: spaces, tabs,
+     * carriage returns and quotes around it are ignored. Returns NaN when
+     * the field is empty or not a number.
+     */
+    static double parseScore(String field) {
+        int from = 0;
+        int to = field.length();
+        while (to > from && isTrimmable(field.charAt(to - 1))) to--;
+        while (from < to && isTrimmable(field.charAt(from))) from++;
+        if (from == to) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(field.substring(from, to));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static boolean lineHasContent(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fast path for plain decimals such as "87" or "-92.25"; anything else
+     * (exponents, very long mantissas) falls back to Double.parseDouble.
+     * Returns NaN when the bytes are not a number.
+     */
+    static double parseDouble(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (digits == MAX_FAST_DIGITS) {
+                    return parseSlow(buffer, from, to);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) digits++;
+                if (seenPoint) fractionDigits++;
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return parseSlow(buffer, from, to);
+            }
+        }
+
+        if (i == from || (digits == 0 && mantissa == 0 && !hasDigit(buffer, from, to))) {
+            return Double.NaN;
+        }
+        if (fractionDigits > MAX_FAST_DIGITS) {
+            return parseSlow(buffer, from, to);
+        }
+
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static boolean hasDigit(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double parseSlow(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
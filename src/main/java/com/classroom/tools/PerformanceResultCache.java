@@ -0,0 +1,138 @@
+package com.classroom.tools;
+
+import com.classroom.cache.BoundedLruCache;
+import com.classroom.observability.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded LRU cache of performance reports keyed by file identity
+ * (path, size, last-modified time and format). A changed file produces a
+ * different key, so stale reports are never served and are dropped as
+ * soon as the new version of the file is looked up.
+ */
+public class PerformanceResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceResultCache.class);
+
+    private final BoundedLruCache<Key, String> entries;
+    private final Map<String, Key> currentKeyByPath;
+
+    public PerformanceResultCache(int maxEntries, long maxBytes, MetricsService metricsService) {
+        this.entries = new BoundedLruCache<>("performance_cache", maxEntries, maxBytes,
+                PerformanceResultCache::weigh, metricsService) {
+            @Override
+            protected void onRemoval(Key key, String report) {
+                forgetPathIfUnused(key.path);
+            }
+        };
+        this.currentKeyByPath = new HashMap<>();
+    }
+
+    /**
+     * Builds the cache key for a file from its current attributes.
+     */
+    public static Key keyFor(Path path, String format) throws IOException {
+        Path absolute = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+        return new Key(absolute.toString(), attributes.size(),
+            attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), format);
+    }
+
+    public synchronized String get(Key key) {
+        String report = entries.get(key);
+        if (report == null) {
+            Key known = currentKeyByPath.get(key.path);
+            if (known != null && !known.sameFileVersion(key)) {
+                logger.debug("Invalidating cached reports for changed file {}", key.path);
+                removeStaleVersions(key);
+            }
+        }
+        return report;
+    }
+
+    public synchronized void put(Key key, String report) {
+        Key known = currentKeyByPath.get(key.path);
+        if (known != null && !known.sameFileVersion(key)) {
+            removeStaleVersions(key);
+        }
+
+        if (entries.put(key, report)) {
+            currentKeyByPath.put(key.path, key);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentKeyByPath.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getCurrentBytes() {
+        return entries.getCurrentBytes();
+    }
+
+    /**
+     * Drops every cached report (any format) for an older version of the file.
+     */
+    private void removeStaleVersions(Key latest) {
+        entries.removeIf((key, report) -> key.path.equals(latest.path) && !key.sameFileVersion(latest));
+        currentKeyByPath.remove(latest.path);
+    }
+
+    private void forgetPathIfUnused(String path) {
+        if (!entries.containsKeyMatching(key -> key.path.equals(path))) {
+            currentKeyByPath.remove(path);
+        }
+    }
+
+    private static long weigh(Key key, String report) {
+        return 2L * (key.path.length() + key.format.length() + report.length());
+    }
+
+    /**
+     * Identity of an analysed file; any change to size or modification time yields a new key.
+     */
+    public static final class Key {
+        private final String path;
+        private final long size;
+        private final long lastModifiedNanos;
+        private final String format;
+
+        public Key(String path, long size, long lastModifiedNanos, String format) {
+            this.path = path;
+            this.size = size;
+            this.lastModifiedNanos = lastModifiedNanos;
+            this.format = format;
+        }
+
+        boolean sameFileVersion(Key other) {
+            return size == other.size && lastModifiedNanos == other.lastModifiedNanos;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return size == key.size && lastModifiedNanos == key.lastModifiedNanos
+                && path.equals(key.path) && format.equals(key.format);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModifiedNanos, format);
+        }
+    }
+}
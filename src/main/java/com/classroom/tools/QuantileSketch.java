@@ -0,0 +1,273 @@
+package com.classroom.tools;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable KLL quantile sketch (Karnin, Lang, Liberty 2016) over doubles.
+ * Memory is bounded by roughly 3k retained values regardless of how many
+ * scores are added; k is derived from the requested normalized rank error.
+ * Sketches built on separate chunks or files can be merged into one.
+ *
+ * Not thread-safe; build one sketch per worker and merge the results.
+ */
+public class QuantileSketch {
+    private static final int MIN_K = 8;
+    private static final int MAX_K = 65535;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    // Empirical single-quantile rank error of KLL (~99% confidence), as published by Apache DataSketches
+    private static final double ERROR_COEFFICIENT = 2.296;
+    private static final double ERROR_EXPONENT = 0.9723;
+
+    private int k;
+    private double[][] levels;
+    private int[] levelSizes;
+    private int numLevels;
+    private int retained;
+    private int capacity;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long randomState;
+
+    public QuantileSketch(int k) {
+        if (k < MIN_K || k > MAX_K) {
+            throw new IllegalArgumentException("k must be between " + MIN_K + " and " + MAX_K + ": " + k);
+        }
+        this.k = k;
+        this.levels = new double[][] { new double[levelCapacity(0, 1)] };
+        this.levelSizes = new int[1];
+        this.numLevels = 1;
+        this.capacity = totalCapacity();
+        this.randomState = System.nanoTime() | 1L;
+    }
+
+    /**
+     * Creates a sketch whose quantile estimates are within the given
+     * normalized rank error, e.g. 0.01 for ±1% of the population.
+     */
+    public static QuantileSketch withRankError(double rankError) {
+        if (!(rankError > 0 && rankError < 1)) {
+            throw new IllegalArgumentException("Rank error must be in (0, 1): " + rankError);
+        }
+        double k = Math.pow(ERROR_COEFFICIENT / rankError, 1.0 / ERROR_EXPONENT);
+        return new QuantileSketch((int) Math.max(MIN_K, Math.min(MAX_K, Math.ceil(k))));
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value < min) min = value;
+        if (value > max) max = value;
+        count++;
+
+        append(0, value);
+        if (retained >= capacity) {
+            compress();
+        }
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+
+        // The merged sketch can only be as accurate as the coarser input
+        k = Math.min(k, other.k);
+        capacity = totalCapacity();
+        for (int level = 0; level < other.numLevels; level++) {
+            while (numLevels <= level) {
+                addLevel();
+            }
+            for (int i = 0; i < other.levelSizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+
+        while (retained >= capacity) {
+            compress();
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Normalized rank error guaranteed (with ~99% confidence) for a single quantile query.
+     */
+    public double getRankError() {
+        return ERROR_COEFFICIENT / Math.pow(k, ERROR_EXPONENT);
+    }
+
+    public int getRetainedItems() {
+        return retained;
+    }
+
+    public double getQuantile(double fraction) {
+        return getQuantiles(new double[] { fraction })[0];
+    }
+
+    /**
+     * Estimates several quantiles at once, sharing a single sorted view of the sketch.
+     */
+    public double[] getQuantiles(double[] fractions) {
+        double[] result = new double[fractions.length];
+        if (count == 0) {
+            return result;
+        }
+
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int size = 0;
+
+        // Merge sorted copies of each level; items on level h stand for 2^h inputs
+        for (int level = 0; level < numLevels; level++) {
+            int levelSize = levelSizes[level];
+            if (levelSize == 0) {
+                continue;
+            }
+            double[] sortedLevel = Arrays.copyOf(levels[level], levelSize);
+            Arrays.sort(sortedLevel);
+            size = mergeSorted(values, weights, size, sortedLevel, 1L << level);
+        }
+
+        for (int q = 0; q < fractions.length; q++) {
+            double fraction = fractions[q];
+            if (fraction <= 0) {
+                result[q] = min;
+            } else if (fraction >= 1) {
+                result[q] = max;
+            } else {
+                double target = fraction * count;
+                long cumulative = 0;
+                int i = 0;
+                while (i < size - 1 && cumulative + weights[i] < target) {
+                    cumulative += weights[i];
+                    i++;
+                }
+                result[q] = values[i];
+            }
+        }
+
+        return result;
+    }
+
+    private static int mergeSorted(double[] values, long[] weights, int size, double[] incoming, long weight) {
+        int i = size - 1;
+        int j = incoming.length - 1;
+        int write = size + incoming.length - 1;
+
+        // Merge from the back so the existing prefix can be reused in place
+        while (j >= 0) {
+            if (i >= 0 && values[i] > incoming[j]) {
+                values[write] = values[i];
+                weights[write] = weights[i];
+                i--;
+            } else {
+                values[write] = incoming[j];
+                weights[write] = weight;
+                j--;
+            }
+            write--;
+        }
+
+        return size + incoming.length;
+    }
+
+    private void compress() {
+        for (int level = 0; level < numLevels; level++) {
+            if (levelSizes[level] >= levelCapacity(level, numLevels)) {
+                if (level + 1 == numLevels) {
+                    addLevel();
+                }
+                compactLevel(level);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sorts a level and promotes every other item (random offset) to the next
+     * level at double weight; an odd leftover item stays behind.
+     */
+    private void compactLevel(int level) {
+        double[] items = levels[level];
+        int size = levelSizes[level];
+        boolean odd = (size & 1) == 1;
+        int pairs = odd ? size - 1 : size;
+
+        Arrays.sort(items, 0, size);
+        int offset = nextRandomBit();
+        for (int i = offset; i < pairs; i += 2) {
+            append(level + 1, items[i]);
+        }
+
+        int kept = odd ? 1 : 0;
+        if (odd) {
+            items[0] = items[size - 1];
+        }
+        retained -= size - kept;
+        levelSizes[level] = kept;
+    }
+
+    private void append(int level, double value) {
+        double[] items = levels[level];
+        int size = levelSizes[level];
+        if (size == items.length) {
+            items = Arrays.copyOf(items, Math.max(MIN_LEVEL_CAPACITY, size + (size >> 1) + 1));
+            levels[level] = items;
+        }
+        items[size] = value;
+        levelSizes[level] = size + 1;
+        retained++;
+    }
+
+    private void addLevel() {
+        if (numLevels == levels.length) {
+            levels = Arrays.copyOf(levels, numLevels + 1);
+            levelSizes = Arrays.copyOf(levelSizes, numLevels + 1);
+        }
+        levels[numLevels] = new double[MIN_LEVEL_CAPACITY];
+        levelSizes[numLevels] = 0;
+        numLevels++;
+        capacity = totalCapacity();
+    }
+
+    private int levelCapacity(int level, int levelCount) {
+        int depth = levelCount - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int level = 0; level < numLevels; level++) {
+            total += levelCapacity(level, numLevels);
+        }
+        return total;
+    }
+
+    private int nextRandomBit() {
+        // xorshift64; compaction only needs an unbiased coin flip
+        long x = randomState;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        randomState = x;
+        return (int) (x >>> 63);
+    }
+}
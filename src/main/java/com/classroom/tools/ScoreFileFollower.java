@@ -0,0 +1,272 @@
+package com.classroom.tools;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Follows a CSV or JSON-lines score file that grows by appends, as during a
+ * live exam session. Only the bytes appended since the stored offset are
+ * read; they update running aggregates (Welford mean/variance, grade
+ * histogram and a quantile sketch) and a fresh report snapshot is published
+ * for readers, who fetch it without taking any lock.
+ *
+ * A file that shrinks is treated as truncated and re-read from the start.
+ */
+public class ScoreFileFollower implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreFileFollower.class);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final long POLL_INTERVAL_MS = 1000; // fallback for file systems without change events
+
+    private final Path path;
+    private final boolean csv;
+    private final double rankError;
+    private final JsonScoreReader jsonScoreReader;
+    private final Function<ScoreStatistics, String> reportRenderer;
+
+    // Writer-side state, guarded by 'this'
+    private ScoreStatistics aggregates;
+    private long offset;
+    private boolean headerPending;
+
+    private volatile Snapshot latest;
+    private volatile boolean running;
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    ScoreFileFollower(Path path, boolean csv, double rankError, JsonScoreReader jsonScoreReader,
+                      Function<ScoreStatistics, String> reportRenderer) {
+        this.path = path.toAbsolutePath().normalize();
+        this.csv = csv;
+        this.rankError = rankError;
+        this.jsonScoreReader = jsonScoreReader;
+        this.reportRenderer = reportRenderer;
+        reset();
+    }
+
+    /**
+     * Reads what is already in the file, then watches it for appends on a daemon thread.
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        poll();
+
+        watchService = FileSystems.getDefault().newWatchService();
+        path.getParent().register(watchService,
+            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+
+        running = true;
+        watcherThread = new Thread(this::watchLoop, "score-follower-" + path.getFileName());
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        logger.info("Following score file {}", path);
+    }
+
+    /**
+     * Latest published report; never blocks.
+     */
+    public String getLatestReport() {
+        return latest.report;
+    }
+
+    public Snapshot getLatestSnapshot() {
+        return latest;
+    }
+
+    /**
+     * Reads any newly appended complete lines and publishes a new snapshot.
+     * Returns the number of scores added.
+     */
+    public synchronized long poll() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                logger.info("Score file {} was truncated, re-reading from the start", path);
+                reset();
+            }
+            if (size == offset) {
+                return 0;
+            }
+
+            long before = aggregates.getCount();
+            readAppended(channel, size);
+
+            if (aggregates.getCount() != latest.count || offset != latest.offset) {
+                publish();
+            }
+            return aggregates.getCount() - before;
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Error closing watch service for {}", path, e);
+            }
+        }
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+        }
+        logger.info("Stopped following score file {}", path);
+    }
+
+    private void watchLoop() {
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // Any event in the directory just triggers a cheap size check
+                    key.pollEvents();
+                    key.reset();
+                }
+                poll();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                logger.warn("Error reading appended scores from {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Consumes complete lines in [offset, size); a trailing partial line is
+     * left for the next poll so a half-written record is never parsed. The
+     * offset moves past each line once it has been consumed, and a malformed
+     * line is skipped on its own.
+     */
+    private void readAppended(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long position = offset;
+        int carried = 0;
+
+        while (position < size) {
+            buffer.limit(buffer.capacity());
+            buffer.position(carried);
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            position += read;
+            int filled = carried + read;
+
+            int lineStart = 0;
+            for (int i = 0; i < filled; i++) {
+                if (buffer.get(i) == '\n') {
+                    acceptLine(buffer, lineStart, i);
+                    offset += i + 1 - lineStart;
+                    lineStart = i + 1;
+                }
+            }
+
+            // Move the unfinished line to the front; grow the buffer for very long lines
+            carried = filled - lineStart;
+            if (carried == buffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.position(0).limit(carried);
+                larger.put(buffer);
+                buffer = larger;
+            } else if (carried > 0 && lineStart > 0) {
+                for (int i = 0; i < carried; i++) {
+                    buffer.put(i, buffer.get(lineStart + i));
+                }
+            }
+        }
+    }
+
+    private void acceptLine(ByteBuffer buffer, int from, int to) {
+        if (headerPending) {
+            headerPending = false;
+            return;
+        }
+
+        if (csv) {
+            int fieldStart = from;
+            boolean inQuotes = false;
+            for (int i = from; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') inQuotes = !inQuotes;
+                else if (b == ',' && !inQuotes) fieldStart = i + 1;
+            }
+
+            int start = fieldStart;
+            int end = to;
+            while (end > start && isTrimmable(buffer.get(end - 1))) end--;
+            while (start < end && isTrimmable(buffer.get(start))) start++;
+            if (start == end) {
+                return;
+            }
+
+            double score = MappedCsvScoreParser.parseDouble(buffer, start, end);
+            if (Double.isNaN(score)) {
+                logger.warn("Invalid score format in appended row of {}", path);
+            } else {
+                aggregates.add(score);
+            }
+        } else {
+            try {
+                jsonScoreReader.read(buffer.array(), from, to - from, aggregates::add);
+            } catch (IOException e) {
+                logger.warn("Skipping malformed JSON line in {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isTrimmable(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '"';
+    }
+
+    private void reset() {
+        aggregates = ScoreStatistics.approximate(rankError);
+        offset = 0;
+        headerPending = csv;
+        latest = new Snapshot("No scores received yet for " + path.getFileName() + ".", 0, 0, System.currentTimeMillis());
+    }
+
+    private void publish() {
+        String report = aggregates.isEmpty()
+            ? "No scores received yet for " + path.getFileName() + "."
+            : reportRenderer.apply(aggregates);
+        latest = new Snapshot(report, aggregates.getCount(), offset, System.currentTimeMillis());
+    }
+
+    /**
+     * Immutable view of the aggregates at one point in the file.
+     */
+    public static final class Snapshot {
+        private final String report;
+        private final long count;
+        private final long offset;
+        private final long publishedAtMillis;
+
+        Snapshot(String report, long count, long offset, long publishedAtMillis) {
+            this.report = report;
+            this.count = count;
+            this.offset = offset;
+            this.publishedAtMillis = publishedAtMillis;
+        }
+
+        public String getReport() { return report; }
+        public long getCount() { return count; }
+        public long getOffset() { return offset; }
+        public long getPublishedAtMillis() { return publishedAtMillis; }
+    }
+}
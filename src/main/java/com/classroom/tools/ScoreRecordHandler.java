@@ -0,0 +1,13 @@
+package com.classroom.tools;
+
+/**
+ * Receives one student record at a time from a streaming score reader.
+ */
+@FunctionalInterface
+public interface ScoreRecordHandler {
+    /**
+     * @param studentId the record's name or id field, or null if it has none
+     * @param score     the record's score
+     */
+    void accept(String studentId, double score);
+}
@@ -0,0 +1,346 @@
+package com.classroom.tools;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary columnar snapshot of a score dataset.
+ *
+ * Layout (little-endian):
+ * <pre>
+ *   header     256 bytes: magic, version, row count, precomputed aggregates
+ *              (sum, min, max, mean, variance, median, P10-P90, grade
+ *              histogram, quantile rank error) and column offsets
+ *   scores     rowCount x float64
+ *   id offsets (rowCount + 1) x int32, into the id bytes region
+ *   id bytes   UTF-8 student ids, back to back
+ * </pre>
+ * Aggregate-only queries read just the header; {@link #open} memory-maps the
+ * columns so even very large snapshots load in milliseconds.
+ */
+public final class ScoreSnapshot implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreSnapshot.class);
+
+    public static final String FILE_EXTENSION = ".csnap";
+
+    private static final int MAGIC = 0x50414E53; // "SNAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 256;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final long MAX_MAPPED_BYTES = Integer.MAX_VALUE;
+
+    private final FileChannel channel;
+    private final ScoreSummary summary;
+    private final int rowCount;
+    private final DoubleBuffer scores;
+    private final IntBuffer idOffsets;
+    private final MappedByteBuffer idBytes;
+
+    private ScoreSnapshot(FileChannel channel, ScoreSummary summary, int rowCount,
+                          DoubleBuffer scores, IntBuffer idOffsets, MappedByteBuffer idBytes) {
+        this.channel = channel;
+        this.summary = summary;
+        this.rowCount = rowCount;
+        this.scores = scores;
+        this.idOffsets = idOffsets;
+        this.idBytes = idBytes;
+    }
+
+    /**
+     * Reads only the fixed-size header; no column data is touched.
+     */
+    public static ScoreSummary readSummary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel).summary;
+        }
+    }
+
+    /**
+     * Memory-maps the snapshot's columns for row-level access. Rows are
+     * addressed by int, so snapshots of more than
+     * {@link Integer#MAX_VALUE} rows are rejected; use
+     * {@link #readSummary} for their aggregates.
+     */
+    public static ScoreSnapshot open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            Header header = readHeader(channel);
+            if (header.rowCount > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot of " + header.rowCount + " rows exceeds the "
+                    + Integer.MAX_VALUE + " row limit for row-level access");
+            }
+            int rows = (int) header.rowCount;
+
+            DoubleBuffer scores = map(channel, header.scoresOffset, (long) rows * Double.BYTES).asDoubleBuffer();
+            IntBuffer idOffsets = map(channel, header.idOffsetsOffset, (rows + 1L) * Integer.BYTES).asIntBuffer();
+            MappedByteBuffer idBytes = map(channel, header.idBytesOffset, header.idBytesLength);
+
+            return new ScoreSnapshot(channel, header.summary, rows, scores, idOffsets, idBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static boolean isSnapshotFile(String filePath) {
+        return filePath.toLowerCase().endsWith(FILE_EXTENSION);
+    }
+
+    public ScoreSummary getSummary() {
+        return summary;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public double getScore(int row) {
+        return scores.get(row);
+    }
+
+    public String getStudentId(int row) {
+        int start = idOffsets.get(row);
+        int end = idOffsets.get(row + 1);
+        byte[] bytes = new byte[end - start];
+        idBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        if (length > MAX_MAPPED_BYTES) {
+            throw new IOException("Snapshot column of " + length + " bytes exceeds the 2 GB mapping limit");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                throw new IOException("Truncated score snapshot header");
+            }
+        }
+        buffer.flip();
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a score snapshot file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported score snapshot version: " + version);
+        }
+
+        long rowCount = buffer.getLong();
+        if (rowCount < 0) {
+            throw new IOException("Corrupt score snapshot header: negative row count");
+        }
+        double sum = buffer.getDouble();
+        double min = buffer.getDouble();
+        double max = buffer.getDouble();
+        double mean = buffer.getDouble();
+        double variance = buffer.getDouble();
+        double median = buffer.getDouble();
+        double[] percentiles = new double[ScoreSummary.PERCENTILE_FRACTIONS.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            percentiles[i] = buffer.getDouble();
+        }
+        long[] gradeCounts = new long[5];
+        for (int i = 0; i < gradeCounts.length; i++) {
+            gradeCounts[i] = buffer.getLong();
+        }
+        double rankError = buffer.getDouble();
+
+        Header header = new Header();
+        header.rowCount = rowCount;
+        header.scoresOffset = buffer.getLong();
+        header.idOffsetsOffset = buffer.getLong();
+        header.idBytesOffset = buffer.getLong();
+        header.idBytesLength = buffer.getLong();
+        header.summary = new ScoreSummary(rowCount, sum, mean, variance, min, max, median,
+            gradeCounts, percentiles, rankError);
+        return header;
+    }
+
+    private static final class Header {
+        long rowCount;
+        long scoresOffset;
+        long idOffsetsOffset;
+        long idBytesOffset;
+        long idBytesLength;
+        ScoreSummary summary;
+    }
+
+    /**
+     * Creates a streaming writer. Rows are written straight to disk; the
+     * header is filled in from the accumulated statistics on {@link Writer#finish()}.
+     */
+    public static Writer newWriter(Path target, ScoreStatistics statistics) throws IOException {
+        return new Writer(target, statistics);
+    }
+
+    /**
+     * Streams rows into a snapshot. The score column goes directly after the
+     * header; ids and their offsets are spooled to temporary files and
+     * appended once the row count is known.
+     */
+    public static final class Writer implements Closeable {
+        private final Path target;
+        private final Path idBytesSpool;
+        private final Path idOffsetsSpool;
+        private final ScoreStatistics statistics;
+        private final FileChannel output;
+        private final FileChannel idBytesChannel;
+        private final FileChannel idOffsetsChannel;
+        private final ByteBuffer scoreBuffer;
+        private final ByteBuffer idBuffer;
+        private final ByteBuffer offsetBuffer;
+
+        private long rowCount;
+        private long idBytesLength;
+        private long scoresPosition = HEADER_SIZE;
+        private long idBytesPosition;
+        private long idOffsetsPosition;
+        private boolean finished;
+
+        private Writer(Path target, ScoreStatistics statistics) throws IOException {
+            this.target = target;
+            this.statistics = statistics;
+            this.idBytesSpool = target.resolveSibling(target.getFileName() + ".ids.tmp");
+            this.idOffsetsSpool = target.resolveSibling(target.getFileName() + ".offsets.tmp");
+            this.output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ);
+            this.idBytesChannel = FileChannel.open(idBytesSpool, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ);
+            this.idOffsetsChannel = FileChannel.open(idOffsetsSpool, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ);
+            this.scoreBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            this.idBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            this.offsetBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            putOffset(0);
+        }
+
+        public void add(String studentId, double score) throws IOException {
+            statistics.add(score);
+
+            if (!scoreBuffer.hasRemaining()) {
+                scoresPosition += drain(scoreBuffer, output, scoresPosition);
+            }
+            scoreBuffer.putDouble(score);
+
+            byte[] id = (studentId == null ? "" : studentId).getBytes(StandardCharsets.UTF_8);
+            if (idBytesLength + id.length > Integer.MAX_VALUE) {
+                throw new IOException("Student id column exceeds the 2 GB snapshot limit");
+            }
+            for (int written = 0; written < id.length; ) {
+                if (!idBuffer.hasRemaining()) {
+                    idBytesPosition += drain(idBuffer, idBytesChannel, idBytesPosition);
+                }
+                int chunk = Math.min(idBuffer.remaining(), id.length - written);
+                idBuffer.put(id, written, chunk);
+                written += chunk;
+            }
+            idBytesLength += id.length;
+            putOffset((int) idBytesLength);
+            rowCount++;
+        }
+
+        /**
+         * Appends the id columns, writes the header and returns the stored summary.
+         */
+        public ScoreSummary finish() throws IOException {
+            scoresPosition += drain(scoreBuffer, output, scoresPosition);
+            idBytesPosition += drain(idBuffer, idBytesChannel, idBytesPosition);
+            idOffsetsPosition += drain(offsetBuffer, idOffsetsChannel, idOffsetsPosition);
+
+            long idOffsetsOffset = scoresPosition;
+            long idBytesOffset = idOffsetsOffset + transfer(idOffsetsChannel, output, idOffsetsOffset);
+            transfer(idBytesChannel, output, idBytesOffset);
+
+            ScoreSummary summary = statistics.summarize(true);
+            output.write(encodeHeader(summary, idOffsetsOffset, idBytesOffset), 0);
+            output.force(false);
+            finished = true;
+
+            logger.info("Wrote score snapshot {} with {} rows", target, rowCount);
+            return summary;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                output.close();
+                idBytesChannel.close();
+                idOffsetsChannel.close();
+            } finally {
+                Files.deleteIfExists(idBytesSpool);
+                Files.deleteIfExists(idOffsetsSpool);
+                if (!finished) {
+                    Files.deleteIfExists(target);
+                }
+            }
+        }
+
+        private void putOffset(int offset) throws IOException {
+            if (!offsetBuffer.hasRemaining()) {
+                idOffsetsPosition += drain(offsetBuffer, idOffsetsChannel, idOffsetsPosition);
+            }
+            offsetBuffer.putInt(offset);
+        }
+
+        private ByteBuffer encodeHeader(ScoreSummary summary, long idOffsetsOffset, long idBytesOffset) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(rowCount);
+            header.putDouble(summary.getSum()).putDouble(summary.getMin()).putDouble(summary.getMax())
+                  .putDouble(summary.getMean()).putDouble(summary.getVariance()).putDouble(summary.getMedian());
+            for (int i = 0; i < ScoreSummary.PERCENTILE_FRACTIONS.length; i++) {
+                header.putDouble(summary.hasPercentiles() ? summary.getPercentile(i) : 0.0);
+            }
+            for (int grade = 0; grade < 5; grade++) {
+                header.putLong(summary.getGradeCount(grade));
+            }
+            header.putDouble(summary.getQuantileRankError());
+            header.putLong(HEADER_SIZE).putLong(idOffsetsOffset).putLong(idBytesOffset).putLong(idBytesLength);
+            header.position(0);
+            return header;
+        }
+
+        private static long drain(ByteBuffer buffer, FileChannel channel, long position) throws IOException {
+            buffer.flip();
+            long written = 0;
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, position + written);
+            }
+            buffer.clear();
+            return written;
+        }
+
+        private static long transfer(FileChannel source, FileChannel target, long position) throws IOException {
+            long size = source.size();
+            long copied = 0;
+            while (copied < size) {
+                copied += source.transferTo(copied, size - copied, target.position(position + copied));
+            }
+            return size;
+        }
+    }
+}
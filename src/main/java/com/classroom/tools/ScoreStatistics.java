@@ -0,0 +1,301 @@
+package com.classroom.tools;
+
+import java.util.Arrays;
+
+/**
+ * Primitive, single-pass accumulator for student scores.
+ * Count, sum, min, max, mean, variance and the grade histogram are updated
+ * as each score arrives; the median is found by selection over a growable
+ * double buffer instead of sorting boxed values. For very large or
+ * streaming inputs the buffer can be replaced by a bounded
+ * {@link QuantileSketch} so memory stays constant.
+ */
+public class ScoreStatistics {
+    public static final int GRADE_A = 0;
+    public static final int GRADE_B = 1;
+    public static final int GRADE_C = 2;
+    public static final int GRADE_D = 3;
+    public static final int GRADE_F = 4;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private final boolean retainScores;
+    private final QuantileSketch sketch;
+    private final long[] gradeCounts = new long[5];
+
+    private double[] scores;
+    private int size;
+
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double mean;
+    private double m2;
+
+    public ScoreStatistics() {
+        this(true);
+    }
+
+    /**
+     * @param retainScores keep every score so the exact median can be selected;
+     *                     when false only the constant-size aggregates are kept
+     */
+    public ScoreStatistics(boolean retainScores) {
+        this(retainScores, null);
+    }
+
+    private ScoreStatistics(boolean retainScores, QuantileSketch sketch) {
+        this.retainScores = retainScores;
+        this.sketch = sketch;
+        this.scores = retainScores ? new double[INITIAL_CAPACITY] : new double[0];
+    }
+
+    /**
+     * Creates an accumulator that keeps no individual scores and answers
+     * median/percentile queries from a sketch with the given rank error.
+     */
+    public static ScoreStatistics approximate(double rankError) {
+        return new ScoreStatistics(false, QuantileSketch.withRankError(rankError));
+    }
+
+    public void add(double score) {
+        count++;
+        sum += score;
+        if (score < min) min = score;
+        if (score > max) max = score;
+
+        // Welford's online update keeps the variance numerically stable
+        double delta = score - mean;
+        mean += delta / count;
+        m2 += delta * (score - mean);
+
+        gradeCounts[gradeBucket(score)]++;
+
+        if (sketch != null) {
+            sketch.update(score);
+        }
+        if (retainScores) {
+            if (size == scores.length) {
+                grow(size + 1);
+            }
+            scores[size++] = score;
+        }
+    }
+
+    /**
+     * Folds another partial aggregate into this one (Chan et al. parallel variance).
+     *
+     * @throws IllegalArgumentException if the two keep scores differently
+     *         (retained, sketched or neither), since the median could not
+     *         be answered from the merged result
+     */
+    public void merge(ScoreStatistics other) {
+        if (retainScores != other.retainScores || (sketch == null) != (other.sketch == null)) {
+            throw new IllegalArgumentException("Cannot merge score statistics kept in different modes");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            mean = other.mean;
+            m2 = other.m2;
+        } else {
+            long combined = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / combined;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / combined);
+        }
+
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int i = 0; i < gradeCounts.length; i++) {
+            gradeCounts[i] += other.gradeCounts[i];
+        }
+
+        if (sketch != null) {
+            sketch.merge(other.sketch);
+        }
+
+        if (retainScores) {
+            if (size + other.size > scores.length) {
+                grow(size + other.size);
+            }
+            System.arraycopy(other.scores, 0, scores, size, other.size);
+            size += other.size;
+        }
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long getCount() { return count; }
+    public double getSum() { return sum; }
+    public double getMin() { return count == 0 ? 0.0 : min; }
+    public double getMax() { return count == 0 ? 0.0 : max; }
+    public double getMean() { return count == 0 ? 0.0 : mean; }
+
+    /**
+     * Population variance of the scores seen so far.
+     */
+    public double getVariance() {
+        return count == 0 ? 0.0 : m2 / count;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public long getGradeCount(int grade) {
+        return gradeCounts[grade];
+    }
+
+    public boolean isRetainingScores() {
+        return retainScores;
+    }
+
+    public boolean isApproximate() {
+        return !retainScores && sketch != null;
+    }
+
+    /**
+     * Normalized rank error of approximate percentiles, or 0 when they are exact.
+     */
+    public double getQuantileRankError() {
+        return isApproximate() ? sketch.getRankError() : 0.0;
+    }
+
+    /**
+     * Percentiles for the given fractions (0.5 = median). Exact values use
+     * nearest-rank selection over the retained buffer; otherwise they come
+     * from the sketch.
+     */
+    public double[] getPercentiles(double[] fractions) {
+        if (isApproximate()) {
+            return sketch.getQuantiles(fractions);
+        }
+        if (!retainScores) {
+            throw new IllegalStateException("Percentiles require retained scores or a quantile sketch");
+        }
+
+        double[] result = new double[fractions.length];
+        if (size == 0) {
+            return result;
+        }
+        for (int i = 0; i < fractions.length; i++) {
+            int rank = (int) Math.ceil(fractions[i] * size) - 1;
+            result[i] = select(scores, 0, size - 1, Math.max(0, Math.min(size - 1, rank)));
+        }
+        return result;
+    }
+
+    /**
+     * Exact median via quickselect over the retained buffer, or the sketch
+     * estimate in approximate mode. The buffer is partially reordered in
+     * place; no copy or full sort is made.
+     */
+    public double getMedian() {
+        if (isApproximate()) {
+            return sketch.getQuantile(0.5);
+        }
+        if (!retainScores) {
+            throw new IllegalStateException("Median requires retained scores or a quantile sketch");
+        }
+        if (size == 0) {
+            return 0.0;
+        }
+
+        int upper = size / 2;
+        double upperValue = select(scores, 0, size - 1, upper);
+        if (size % 2 == 1) {
+            return upperValue;
+        }
+
+        // After selection everything left of 'upper' is <= the upper middle value
+        double lowerValue = scores[0];
+        for (int i = 1; i < upper; i++) {
+            if (scores[i] > lowerValue) lowerValue = scores[i];
+        }
+        return (lowerValue + upperValue) / 2.0;
+    }
+
+    /**
+     * Snapshot of the current aggregates. Percentiles are always included in
+     * approximate mode; in exact mode only when asked for, as they need extra
+     * selection passes over the buffer.
+     */
+    public ScoreSummary summarize(boolean includeExactPercentiles) {
+        double[] percentiles = null;
+        if (!isEmpty() && (isApproximate() || (includeExactPercentiles && retainScores))) {
+            percentiles = getPercentiles(ScoreSummary.PERCENTILE_FRACTIONS);
+        }
+        double median = isEmpty() ? 0.0 : getMedian();
+        return new ScoreSummary(count, sum, getMean(), getVariance(), getMin(), getMax(),
+            median, gradeCounts, percentiles, getQuantileRankError());
+    }
+
+    static int gradeBucket(double score) {
+        if (score >= 90) return GRADE_A;
+        if (score >= 80) return GRADE_B;
+        if (score >= 70) return GRADE_C;
+        if (score >= 60) return GRADE_D;
+        return GRADE_F;
+    }
+
+    /**
+     * Hoare-partition quickselect with median-of-three pivots; returns the
+     * k-th smallest value in values[from..to] and leaves it at index k.
+     */
+    static double select(double[] values, int from, int to, int k) {
+        int left = from;
+        int right = to;
+
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (values[mid] < values[left]) swap(values, mid, left);
+            if (values[right] < values[left]) swap(values, right, left);
+            if (values[right] < values[mid]) swap(values, right, mid);
+            double pivot = values[mid];
+
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) i++;
+                while (values[j] > pivot) j--;
+                if (i <= j) {
+                    swap(values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+
+        return values[k];
+    }
+
+    private static void swap(double[] values, int i, int j) {
+        double tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Too many scores to retain in memory: " + minCapacity);
+        }
+        int newCapacity = (int) Math.min(MAX_CAPACITY, Math.max((long) minCapacity, scores.length + (scores.length >> 1) + 16L));
+        scores = Arrays.copyOf(scores, newCapacity);
+    }
+}
@@ -0,0 +1,54 @@
+package com.classroom.tools;
+
+/**
+ * Immutable result of a score analysis: the values a performance report is
+ * rendered from. Produced from live {@link ScoreStatistics} or read back
+ * from a snapshot header without touching the score data.
+ */
+public final class ScoreSummary {
+    /** Percentiles carried by a summary, as fractions: P10, P25, P50, P75, P90. */
+    public static final double[] PERCENTILE_FRACTIONS = {0.10, 0.25, 0.50, 0.75, 0.90};
+
+    private final long count;
+    private final double sum;
+    private final double mean;
+    private final double variance;
+    private final double min;
+    private final double max;
+    private final double median;
+    private final long[] gradeCounts;
+    private final double[] percentiles;
+    private final double quantileRankError;
+
+    /**
+     * @param percentiles values for {@link #PERCENTILE_FRACTIONS}, or null if not computed
+     * @param quantileRankError normalized rank error of median/percentiles, 0 when exact
+     */
+    public ScoreSummary(long count, double sum, double mean, double variance, double min, double max,
+                        double median, long[] gradeCounts, double[] percentiles, double quantileRankError) {
+        this.count = count;
+        this.sum = sum;
+        this.mean = mean;
+        this.variance = variance;
+        this.min = min;
+        this.max = max;
+        this.median = median;
+        this.gradeCounts = gradeCounts.clone();
+        this.percentiles = percentiles == null ? null : percentiles.clone();
+        this.quantileRankError = quantileRankError;
+    }
+
+    public long getCount() { return count; }
+    public double getSum() { return sum; }
+    public double getMean() { return mean; }
+    public double getVariance() { return variance; }
+    public double getStandardDeviation() { return Math.sqrt(variance); }
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+    public double getMedian() { return median; }
+    public long getGradeCount(int grade) { return gradeCounts[grade]; }
+    public boolean hasPercentiles() { return percentiles != null; }
+    public double getPercentile(int index) { return percentiles[index]; }
+    public double getQuantileRankError() { return quantileRankError; }
+    public boolean isApproximate() { return quantileRankError > 0; }
+}
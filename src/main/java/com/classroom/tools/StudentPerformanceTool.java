@@ -1,6 +1,8 @@
 package com.classroom.tools;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.classroom.concurrent.Deadline;
+import com.classroom.memory.GradingResultStore;
+import com.classroom.observability.MetricsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.adk.tools.Tool;
 import com.opencsv.CSVReader;
@@ -9,10 +11,16 @@ import org.slf4j.LoggerFactory;
 
 import java.io.FileReader;
 import java.io.IOException;
-import com.opencsv.exceptions.CsvValidationException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import com.opencsv.exceptions.CsvValidationException;
 
 /**
  * Custom MCP Tool for analyzing student performance data
@@ -20,63 +28,469 @@ import java.util.List;
 @Tool(name = "StudentPerformanceTool", description = "Analyzes student performance from JSON/CSV data")
 public class StudentPerformanceTool {
     private static final Logger logger = LoggerFactory.getLogger(StudentPerformanceTool.class);
+    private static final long DEFAULT_MAPPED_CSV_THRESHOLD = 16L << 20; // 16 MB
+    private static final String SNAPSHOT_FORMAT = "snapshot";
+    private static final double DEFAULT_FOLLOW_RANK_ERROR = 0.01;
+    private static final double DEFAULT_GROUP_RANK_ERROR = 0.01;
+    private static final String NO_GROUP_LABEL = "(none)";
+    private static final int RESULT_CACHE_MAX_ENTRIES = 256;
+    private static final long RESULT_CACHE_MAX_BYTES = 8L << 20; // 8 MB
+    private static final int RANK_INDEX_CACHE_ENTRIES = 4;
+    private static final int MAX_AMBIGUOUS_MATCHES = 5;
+    private static final String DEADLINE_EXCEEDED_MESSAGE =
+        "Performance analysis stopped: the request deadline passed before the data was read.";
     
     private final ObjectMapper objectMapper;
+    private final JsonScoreReader jsonScoreReader;
+    private final MappedCsvScoreParser mappedCsvParser;
+    private final PerformanceResultCache resultCache;
+    private final DirectoryScoreAnalyzer directoryAnalyzer;
+    private final Map<PerformanceResultCache.Key, StudentRankIndex> rankIndexes;
+    private volatile long mappedCsvThreshold = DEFAULT_MAPPED_CSV_THRESHOLD;
+    private volatile double quantileRankError; // 0 means exact median
     
     public StudentPerformanceTool() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * @param ingestionPool fork-join pool used to parse large CSV files and score directories in parallel
+     */
+    public StudentPerformanceTool(ForkJoinPool ingestionPool) {
         this.objectMapper = new ObjectMapper();
+        this.jsonScoreReader = new JsonScoreReader(objectMapper.getFactory());
+        this.mappedCsvParser = new MappedCsvScoreParser(ingestionPool);
+        this.resultCache = new PerformanceResultCache(
+            RESULT_CACHE_MAX_ENTRIES, RESULT_CACHE_MAX_BYTES, MetricsService.getInstance());
+        this.directoryAnalyzer = new DirectoryScoreAnalyzer(ingestionPool, this::loadStatistics);
+        this.rankIndexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PerformanceResultCache.Key, StudentRankIndex> eldest) {
+                return size() > RANK_INDEX_CACHE_ENTRIES;
+            }
+        };
         logger.info("StudentPerformanceTool initialized");
     }
     
+    /**
+     * CSV files at least this large are memory-mapped and parsed in parallel
+     * chunks; smaller files keep using opencsv. Use 0 to always map, or
+     * {@link Long#MAX_VALUE} to disable the mapped path.
+     */
+    public void setMappedCsvThreshold(long thresholdBytes) {
+        this.mappedCsvThreshold = thresholdBytes;
+    }
+    
+    /**
+     * Switches median and percentile reporting to a bounded-memory quantile
+     * sketch with the given normalized rank error (e.g. 0.01 for ±1%).
+     * Individual scores are then no longer kept in memory.
+     */
+    public void setApproximateQuantiles(double rankError) {
+        QuantileSketch.withRankError(rankError); // validates the bound
+        this.quantileRankError = rankError;
+    }
+    
+    /**
+     * Restores exact median reporting, which keeps every score in memory.
+     */
+    public void setExactQuantiles() {
+        this.quantileRankError = 0.0;
+    }
+    
+    public void clearResultCache() {
+        resultCache.clear();
+        synchronized (rankIndexes) {
+            rankIndexes.clear();
+        }
+    }
+    
+    private ScoreStatistics newStatistics() {
+        return newStatistics(quantileRankError);
+    }
+    
+    private static ScoreStatistics newStatistics(double rankError) {
+        return rankError > 0 ? ScoreStatistics.approximate(rankError) : new ScoreStatistics();
+    }
+    
     public String analyzePerformance(String filePath) {
+        return analyzePerformance(filePath, Deadline.none());
+    }
+    
+    /**
+     * Like {@link #analyzePerformance(String)}, stopping once the deadline
+     * expires; it is checked for every record read.
+     */
+    public String analyzePerformance(String filePath, Deadline deadline) {
         logger.info("Analyzing student performance from file: {}", filePath);
         
         try {
-            List<Double> scores;
+            String format = detectFormat(filePath);
+            if (format == null) {
+                return "Unsupported file format. Please provide JSON or CSV file.";
+            }
+            if (SNAPSHOT_FORMAT.equals(format)) {
+                // Aggregates were precomputed when the snapshot was written
+                ScoreSummary summary = ScoreSnapshot.readSummary(Paths.get(filePath));
+                if (summary.getCount() == 0) {
+                    return "No valid scores found in the file.";
+                }
+                return generateStatistics(summary);
+            }
+            
+            // Same file, same contents, same quantile mode -> same report
+            PerformanceResultCache.Key cacheKey =
+                PerformanceResultCache.keyFor(Paths.get(filePath), format + ":" + quantileMode());
+            String cached = resultCache.get(cacheKey);
+            if (cached != null) {
+                logger.info("Serving cached performance analysis for {}", filePath);
+                return cached;
+            }
+            
+            ScoreStatistics statistics = loadStatistics(Paths.get(filePath), format, deadline);
+            
+            if (statistics.isEmpty()) {
+                return "No valid scores found in the file.";
+            }
+            
+            String report = generateStatistics(statistics);
+            resultCache.put(cacheKey, report);
+            return report;
+            
+        } catch (CancellationException e) {
+            logger.warn("Performance analysis abandoned: {}", e.getMessage());
+            return DEADLINE_EXCEEDED_MESSAGE;
+        } catch (Exception e) {
+            logger.error("Error analyzing performance data", e);
+            return "Error analyzing performance data: " + e.getMessage();
+        }
+    }
+    
+    /**
+     * Analyses every score file in a directory (or matching a glob such as
+     * {@code data/section-*.csv}) in parallel and reports school-wide
+     * statistics followed by a per-file breakdown.
+     */
+    public String analyzeDirectory(String directoryOrGlob) {
+        return analyzeDirectory(directoryOrGlob, Deadline.none());
+    }
+    
+    public String analyzeDirectory(String directoryOrGlob, Deadline deadline) {
+        logger.info("Analyzing student performance across files: {}", directoryOrGlob);
+        
+        try {
+            DirectoryScoreAnalyzer.Result result = directoryAnalyzer.analyze(directoryOrGlob, deadline);
+            DirectoryScoreAnalyzer.FileSummary[] summaries = result.getFileSummaries();
+            
+            if (summaries.length == 0) {
+                return "No JSON or CSV score files found for: " + directoryOrGlob;
+            }
+            ScoreStatistics combined = result.getCombined();
+            if (combined == null || combined.isEmpty()) {
+                return "No valid scores found in " + summaries.length + " files.";
+            }
             
-            if (filePath.toLowerCase().endsWith(".json")) {
-                scores = parseJsonFile(filePath);
-            } else if (filePath.toLowerCase().endsWith(".csv")) {
-                scores = parseCsvFile(filePath);
+            long failed = 0;
+            for (DirectoryScoreAnalyzer.FileSummary summary : summaries) {
+                if (summary.isFailed()) failed++;
+            }
+            
+            StringBuilder report = new StringBuilder();
+            report.append("SCHOOL-WIDE SUMMARY\n");
+            report.append("Files Analyzed: ").append(summaries.length - failed);
+            if (failed > 0) {
+                report.append(" (").append(failed).append(" failed)");
+            }
+            report.append("\n\n");
+            report.append(generateStatistics(combined));
+            
+            report.append("\nPER-FILE BREAKDOWN:\n");
+            for (DirectoryScoreAnalyzer.FileSummary summary : summaries) {
+                report.append("- ").append(summary.getPath().getFileName()).append(": ");
+                if (summary.isFailed()) {
+                    report.append("failed (").append(summary.getError()).append(")\n");
+                } else {
+                    report.append(summary.getCount()).append(" students, mean ")
+                          .append(String.format("%.2f", summary.getMean())).append(", median ")
+                          .append(String.format("%.2f", summary.getMedian())).append(", min ")
+                          .append(String.format("%.2f", summary.getMin())).append(", max ")
+                          .append(String.format("%.2f", summary.getMax())).append("\n");
+                }
+            }
+            
+            return report.toString();
+            
+        } catch (CancellationException e) {
+            logger.warn("Performance analysis abandoned: {}", e.getMessage());
+            return DEADLINE_EXCEEDED_MESSAGE;
+        } catch (Exception e) {
+            logger.error("Error analyzing performance directory", e);
+            return "Error analyzing performance data: " + e.getMessage();
+        }
+    }
+    
+    /**
+     * Reports statistics per value of a grouping field such as section,
+     * teacher or subject, in a single pass over the file. For JSON the field
+     * is read from each student record; for CSV it is the column with that
+     * header (the score stays in the last column). Per-group medians come
+     * from quantile sketches, so memory grows with the number of groups and
+     * not with the number of rows.
+     */
+    public String analyzePerformanceByGroup(String filePath, String groupField) {
+        return analyzePerformanceByGroup(filePath, groupField, Deadline.none());
+    }
+    
+    public String analyzePerformanceByGroup(String filePath, String groupField, Deadline deadline) {
+        logger.info("Analyzing student performance from file: {} grouped by {}", filePath, groupField);
+        
+        try {
+            String format = detectFormat(filePath);
+            if (format == null) {
+                return "Unsupported file format. Please provide JSON or CSV file.";
+            }
+            if (SNAPSHOT_FORMAT.equals(format)) {
+                return "Snapshots only keep student ids and scores and cannot be grouped by " + groupField + ".";
+            }
+            
+            double rankError = quantileRankError > 0 ? quantileRankError : DEFAULT_GROUP_RANK_ERROR;
+            GroupedScoreStatistics groups = new GroupedScoreStatistics(rankError);
+            ScoreRecordHandler handler = guarded(
+                (group, score) -> groups.add(group == null ? NO_GROUP_LABEL : group, score), deadline);
+            
+            if ("json".equals(format)) {
+                jsonScoreReader.readGroups(Paths.get(filePath), groupField, handler);
             } else {
+                String error = readCsvGroups(Paths.get(filePath), groupField, handler);
+                if (error != null) {
+                    return error;
+                }
+            }
+            
+            if (groups.getGroupCount() == 0) {
+                return "No valid scores found in the file.";
+            }
+            
+            return generateGroupedStatistics(groups, groupField);
+            
+        } catch (CancellationException e) {
+            logger.warn("Performance analysis abandoned: {}", e.getMessage());
+            return DEADLINE_EXCEEDED_MESSAGE;
+        } catch (Exception e) {
+            logger.error("Error analyzing grouped performance data", e);
+            return "Error analyzing performance data: " + e.getMessage();
+        }
+    }
+    
+    /**
+     * Lists the k highest scoring students with their names, selected in one
+     * pass with a bounded heap.
+     */
+    public String topStudents(String filePath, int k) {
+        return topStudents(filePath, k, Deadline.none());
+    }
+    
+    public String topStudents(String filePath, int k, Deadline deadline) {
+        return rankStudents(filePath, k, true, deadline);
+    }
+    
+    /**
+     * Lists the k lowest scoring students with their names.
+     */
+    public String bottomStudents(String filePath, int k) {
+        return bottomStudents(filePath, k, Deadline.none());
+    }
+    
+    public String bottomStudents(String filePath, int k, Deadline deadline) {
+        return rankStudents(filePath, k, false, deadline);
+    }
+    
+    private String rankStudents(String filePath, int k, boolean highest, Deadline deadline) {
+        logger.info("Finding {} {} students in {}", highest ? "top" : "bottom", k, filePath);
+        
+        if (k <= 0) {
+            return "Please ask for at least one student.";
+        }
+        try {
+            String format = detectFormat(filePath);
+            if (format == null) {
                 return "Unsupported file format. Please provide JSON or CSV file.";
             }
             
-            if (scores.isEmpty()) {
+            TopKHeap heap = new TopKHeap(k, highest);
+            readRecords(Paths.get(filePath), format, heap::add, deadline);
+            if (heap.size() == 0) {
                 return "No valid scores found in the file.";
             }
             
-            return generateStatistics(scores);
+            StringBuilder report = new StringBuilder();
+            report.append(highest ? "TOP " : "BOTTOM ").append(heap.size()).append(" STUDENTS\n");
+            TopKHeap.Entry[] entries = heap.toSortedArray();
+            for (int i = 0; i < entries.length; i++) {
+                String name = entries[i].getName() != null ? entries[i].getName() : "(unnamed)";
+                report.append(i + 1).append(". ").append(name).append(": ")
+                      .append(String.format("%.2f", entries[i].getScore())).append("\n");
+            }
+            return report.toString();
             
+        } catch (CancellationException e) {
+            logger.warn("Performance analysis abandoned: {}", e.getMessage());
+            return DEADLINE_EXCEEDED_MESSAGE;
         } catch (Exception e) {
-            logger.error("Error analyzing performance data", e);
+            logger.error("Error ranking students", e);
             return "Error analyzing performance data: " + e.getMessage();
         }
     }
     
-    public String analyzePerformanceFromData(String jsonData) {
-        logger.info("Analyzing student performance from provided data");
+    /**
+     * Reports a student's percentile rank and position in the dataset. The
+     * name may be a full name or a unique prefix such as a first name. The
+     * sorted rank index is built once per file version and reused.
+     */
+    public String percentileRank(String filePath, String studentName) {
+        return percentileRank(filePath, studentName, Deadline.none());
+    }
+    
+    public String percentileRank(String filePath, String studentName, Deadline deadline) {
+        logger.info("Finding percentile rank of {} in {}", studentName, filePath);
         
         try {
-            JsonNode rootNode = objectMapper.readTree(jsonData);
-            List<Double> scores = new ArrayList<>();
-            
-            if (rootNode.isArray()) {
-                for (JsonNode node : rootNode) {
-                    if (node.has("score")) {
-                        scores.add(node.get("score").asDouble());
-                    }
+            String format = detectFormat(filePath);
+            if (format == null) {
+                return "Unsupported file format. Please provide JSON or CSV file.";
+            }
+            
+            StudentRankIndex index = rankIndex(Paths.get(filePath), format, deadline);
+            if (index.size() == 0) {
+                return "No valid scores found in the file.";
+            }
+            
+            List<StudentRankIndex.Match> matches = index.findStudents(studentName);
+            if (matches.isEmpty()) {
+                return "No student named '" + studentName + "' found in " + filePath + ".";
+            }
+            if (matches.size() > 1) {
+                StringBuilder ambiguous = new StringBuilder();
+                ambiguous.append(matches.size()).append(" students match '").append(studentName).append("': ");
+                for (int i = 0; i < Math.min(matches.size(), MAX_AMBIGUOUS_MATCHES); i++) {
+                    if (i > 0) ambiguous.append(", ");
+                    ambiguous.append(matches.get(i).getName());
                 }
-            } else if (rootNode.has("students")) {
-                JsonNode studentsNode = rootNode.get("students");
-                for (JsonNode student : studentsNode) {
-                    if (student.has("score")) {
-                        scores.add(student.get("score").asDouble());
-                    }
+                if (matches.size() > MAX_AMBIGUOUS_MATCHES) {
+                    ambiguous.append(", ...");
                 }
+                return ambiguous.append(". Please use the full name.").toString();
             }
             
-            return generateStatistics(scores);
+            StudentRankIndex.Match match = matches.get(0);
+            return match.getName() + " scored " + String.format("%.2f", match.getScore())
+                + ", ranked " + index.rank(match.getScore()) + " of " + index.size()
+                + " (percentile rank " + String.format("%.1f", index.percentileRank(match.getScore())) + ").";
+            
+        } catch (CancellationException e) {
+            logger.warn("Performance analysis abandoned: {}", e.getMessage());
+            return DEADLINE_EXCEEDED_MESSAGE;
+        } catch (Exception e) {
+            logger.error("Error computing percentile rank", e);
+            return "Error analyzing performance data: " + e.getMessage();
+        }
+    }
+    
+    private StudentRankIndex rankIndex(Path path, String format, Deadline deadline)
+            throws IOException, CsvValidationException {
+        PerformanceResultCache.Key key = PerformanceResultCache.keyFor(path, format);
+        synchronized (rankIndexes) {
+            StudentRankIndex cached = rankIndexes.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        StudentRankIndex.Builder builder = StudentRankIndex.builder();
+        readRecords(path, format, builder::add, deadline);
+        StudentRankIndex index = builder.build();
+        
+        synchronized (rankIndexes) {
+            rankIndexes.put(key, index);
+        }
+        return index;
+    }
+    
+    /**
+     * Starts following a CSV or JSON-lines file that grows by appends. Only
+     * newly appended bytes are read on each change, and the returned
+     * follower always holds a ready-made report of everything seen so far.
+     * Percentiles use the configured sketch error, or ±1% in exact mode since
+     * a live file has no upper bound. Close the follower to stop watching.
+     */
+    public ScoreFileFollower followPerformance(String filePath) throws IOException {
+        String format = detectFormat(filePath);
+        if (format == null || SNAPSHOT_FORMAT.equals(format)) {
+            throw new IOException("Unsupported file format. Please provide a CSV or JSON-lines file.");
+        }
+        
+        double rankError = quantileRankError > 0 ? quantileRankError : DEFAULT_FOLLOW_RANK_ERROR;
+        ScoreFileFollower follower = new ScoreFileFollower(
+            Paths.get(filePath), "csv".equals(format), rankError, jsonScoreReader, this::generateStatistics);
+        follower.start();
+        return follower;
+    }
+    
+    /**
+     * Converts a JSON or CSV score file into a binary columnar snapshot
+     * ({@value ScoreSnapshot#FILE_EXTENSION}) with precomputed aggregates in its
+     * header. Analysing the snapshot afterwards reads only that header.
+     */
+    public String writeSnapshot(String inputPath, String snapshotPath) {
+        logger.info("Writing score snapshot {} from {}", snapshotPath, inputPath);
+        
+        String format = detectFormat(inputPath);
+        if (format == null || SNAPSHOT_FORMAT.equals(format)) {
+            return "Unsupported file format. Please provide JSON or CSV file.";
+        }
+        if (!ScoreSnapshot.isSnapshotFile(snapshotPath)) {
+            return "Snapshot path must end with " + ScoreSnapshot.FILE_EXTENSION;
+        }
+        
+        try (ScoreSnapshot.Writer writer = ScoreSnapshot.newWriter(Paths.get(snapshotPath), newStatistics())) {
+            readRecords(Paths.get(inputPath), format, (studentId, score) -> {
+                try {
+                    writer.add(studentId, score);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            ScoreSummary summary = writer.finish();
+            return "Snapshot written to " + snapshotPath + " with " + summary.getCount() + " scores.";
+            
+        } catch (UncheckedIOException e) {
+            logger.error("Error writing score snapshot", e.getCause());
+            return "Error writing score snapshot: " + e.getCause().getMessage();
+        } catch (Exception e) {
+            logger.error("Error writing score snapshot", e);
+            return "Error writing score snapshot: " + e.getMessage();
+        }
+    }
+    
+    /**
+     * True if the target is a directory or glob to be handled by {@link #analyzeDirectory}.
+     */
+    public static boolean isMultiFileTarget(String target) {
+        return DirectoryScoreAnalyzer.isMultiFileTarget(target);
+    }
+    
+    public String analyzePerformanceFromData(String jsonData) {
+        logger.info("Analyzing student performance from provided data");
+        
+        try {
+            ScoreStatistics statistics = newStatistics();
+            jsonScoreReader.read(jsonData, statistics::add);
+            
+            if (statistics.isEmpty()) {
+                return "No valid scores found in the provided data.";
+            }
+            
+            return generateStatistics(statistics);
             
         } catch (Exception e) {
             logger.error("Error parsing performance data", e);
@@ -84,26 +498,211 @@ public class StudentPerformanceTool {
         }
     }
     
-    private List<Double> parseJsonFile(String filePath) throws IOException {
-        List<Double> scores = new ArrayList<>();
-        JsonNode rootNode = objectMapper.readTree(new FileReader(filePath));
+    /**
+     * Analyses the score column of a stored grading batch directly, without
+     * exporting it to JSON or CSV first.
+     */
+    public String analyzeGradingResults(GradingResultStore gradingResults) {
+        logger.info("Analyzing student performance from {} stored grading results", gradingResults.size());
+        
+        ScoreStatistics statistics = newStatistics();
+        for (int row = 0; row < gradingResults.size(); row++) {
+            statistics.add(gradingResults.getScore(row));
+        }
+        return generateStatistics(statistics, "No grading results to analyze.");
+    }
+    
+    public String analyzeScores(int[] scores) {
+        logger.info("Analyzing student performance from {} scores", scores.length);
+        
+        ScoreStatistics statistics = newStatistics();
+        for (int score : scores) {
+            statistics.add(score);
+        }
+        return generateStatistics(statistics, "No valid scores found in the provided data.");
+    }
+    
+    public String analyzeScores(double[] scores) {
+        logger.info("Analyzing student performance from {} scores", scores.length);
         
-        if (rootNode.isArray()) {
-            for (JsonNode node : rootNode) {
-                if (node.has("score")) {
-                    scores.add(node.get("score").asDouble());
-                } else if (node.isNumber()) {
-                    scores.add(node.asDouble());
+        ScoreStatistics statistics = newStatistics();
+        for (double score : scores) {
+            statistics.add(score);
+        }
+        return generateStatistics(statistics, "No valid scores found in the provided data.");
+    }
+    
+    private static String detectFormat(String filePath) {
+        String lowerPath = filePath.toLowerCase();
+        if (lowerPath.endsWith(".json") || lowerPath.endsWith(".jsonl") || lowerPath.endsWith(".ndjson")) {
+            return "json";
+        }
+        if (lowerPath.endsWith(".csv")) {
+            return "csv";
+        }
+        if (ScoreSnapshot.isSnapshotFile(lowerPath)) {
+            return SNAPSHOT_FORMAT;
+        }
+        return null;
+    }
+    
+    private ScoreStatistics loadStatistics(Path path, Deadline deadline) throws IOException, CsvValidationException {
+        String format = detectFormat(path.toString());
+        if (format == null) {
+            throw new IOException("Unsupported file format");
+        }
+        return loadStatistics(path, format, deadline);
+    }
+    
+    private ScoreStatistics loadStatistics(Path path, String format, Deadline deadline)
+            throws IOException, CsvValidationException {
+        if (SNAPSHOT_FORMAT.equals(format)) {
+            return loadSnapshotScores(path, deadline);
+        }
+        return "csv".equals(format) ? parseCsvFile(path.toString(), deadline) : parseJsonFile(path.toString(), deadline);
+    }
+    
+    private ScoreStatistics loadSnapshotScores(Path path, Deadline deadline) throws IOException {
+        ScoreStatistics statistics = newStatistics();
+        try (ScoreSnapshot snapshot = ScoreSnapshot.open(path)) {
+            int rows = snapshot.getRowCount();
+            for (int row = 0; row < rows; row++) {
+                deadline.check();
+                statistics.add(snapshot.getScore(row));
+            }
+        }
+        return statistics;
+    }
+    
+    private void readRecords(Path path, String format, ScoreRecordHandler handler)
+            throws IOException, CsvValidationException {
+        readRecords(path, format, handler, Deadline.none());
+    }
+    
+    /**
+     * Streams every (student id, score) record of a JSON, CSV or snapshot file to the handler.
+     * For CSV the id is the first column and the score the last, after a header row.
+     */
+    private void readRecords(Path path, String format, ScoreRecordHandler handler, Deadline deadline)
+            throws IOException, CsvValidationException {
+        handler = guarded(handler, deadline);
+        if ("json".equals(format)) {
+            jsonScoreReader.readRecords(path, handler);
+            return;
+        }
+        if (SNAPSHOT_FORMAT.equals(format)) {
+            try (ScoreSnapshot snapshot = ScoreSnapshot.open(path)) {
+                int rows = snapshot.getRowCount();
+                for (int row = 0; row < rows; row++) {
+                    String studentId = snapshot.getStudentId(row);
+                    handler.accept(studentId.isEmpty() ? null : studentId, snapshot.getScore(row));
                 }
             }
+            return;
         }
         
-        return scores;
+        long invalidRows = 0;
+        try (CSVReader reader = new CSVReader(new FileReader(path.toFile()))) {
+            String[] nextLine = reader.readNext(); // Skip header
+            while ((nextLine = reader.readNext()) != null) {
+                if (MappedCsvScoreParser.isBlankRecord(nextLine)) {
+                    continue;
+                }
+                double score = MappedCsvScoreParser.parseScore(nextLine[nextLine.length - 1]);
+                if (Double.isNaN(score)) {
+                    invalidRows++;
+                } else {
+                    handler.accept(nextLine[0], score);
+                }
+            }
+        }
+        warnInvalidRows(invalidRows, path);
+    }
+    
+    /**
+     * Streams (group, score) pairs from a CSV file, taking the group from the
+     * column whose header matches groupField. Returns an error message if
+     * there is no such column, otherwise null.
+     */
+    private String readCsvGroups(Path path, String groupField, ScoreRecordHandler handler)
+            throws IOException, CsvValidationException {
+        try (CSVReader reader = new CSVReader(new FileReader(path.toFile()))) {
+            String[] header = reader.readNext();
+            int groupColumn = -1;
+            for (int i = 0; header != null && i < header.length; i++) {
+                if (header[i].trim().equalsIgnoreCase(groupField)) {
+                    groupColumn = i;
+                    break;
+                }
+            }
+            if (groupColumn < 0) {
+                return "Column '" + groupField + "' not found in CSV header"
+                    + (header == null ? "." : ": " + String.join(", ", header));
+            }
+            
+            String[] nextLine;
+            long invalidRows = 0;
+            while ((nextLine = reader.readNext()) != null) {
+                if (MappedCsvScoreParser.isBlankRecord(nextLine)) {
+                    continue;
+                }
+                double score = MappedCsvScoreParser.parseScore(nextLine[nextLine.length - 1]);
+                if (Double.isNaN(score)) {
+                    invalidRows++;
+                    continue;
+                }
+                String group = groupColumn < nextLine.length ? nextLine[groupColumn].trim() : "";
+                handler.accept(group.isEmpty() ? null : group, score);
+            }
+            warnInvalidRows(invalidRows, path);
+        }
+        return null;
+    }
+    
+    /**
+     * Wraps a handler so each record first checks the deadline.
+     */
+    private static ScoreRecordHandler guarded(ScoreRecordHandler handler, Deadline deadline) {
+        return (studentId, score) -> {
+            deadline.check();
+            handler.accept(studentId, score);
+        };
     }
     
-    private List<Double> parseCsvFile(String filePath) throws IOException, CsvValidationException {
-        List<Double> scores = new ArrayList<>();
+    private String quantileMode() {
+        double rankError = quantileRankError;
+        return rankError > 0 ? "approx-" + rankError : "exact";
+    }
+    
+    private ScoreStatistics parseJsonFile(String filePath, Deadline deadline) throws IOException {
+        // Token-level streaming keeps multi-GB exports off the heap; handles
+        // top-level arrays, {"students":[...]} wrappers and JSON lines alike
+        ScoreStatistics statistics = newStatistics();
+        jsonScoreReader.read(Paths.get(filePath), score -> {
+            deadline.check();
+            statistics.add(score);
+        });
+        return statistics;
+    }
+    
+    private ScoreStatistics parseCsvFile(String filePath, Deadline deadline) throws IOException, CsvValidationException {
+        Path path = Paths.get(filePath);
+        if (Files.size(path) >= mappedCsvThreshold) {
+            // One mode for every chunk, even if it is switched while the file is parsed
+            double rankError = quantileRankError;
+            ScoreStatistics mapped = mappedCsvParser.parse(path, () -> newStatistics(rankError), deadline);
+            if (mapped != null) {
+                return mapped;
+            }
+            // Line breaks inside quoted fields need opencsv's record-aware reader
+            logger.info("Falling back to opencsv for {}", filePath);
+        }
+        
+        ScoreStatistics statistics = newStatistics();
+        long invalidRows = 0;
         
+        // Blank lines and padded scores are read as the mapped parser reads them,
+        // so results do not depend on which side of the size threshold a file is
         try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
             String[] nextLine;
             boolean isFirstLine = true;
@@ -114,78 +713,127 @@ public class StudentPerformanceTool {
                     continue; // Skip header
                 }
                 
+                deadline.check();
+                if (MappedCsvScoreParser.isBlankRecord(nextLine)) {
+                    continue;
+                }
                 // Assume score is in the last column
-                if (nextLine.length > 0) {
-                    try {
-                        double score = Double.parseDouble(nextLine[nextLine.length - 1]);
-                        scores.add(score);
-                    } catch (NumberFormatException e) {
-                        logger.warn("Invalid score format: {}", nextLine[nextLine.length - 1]);
-                    }
+                double score = MappedCsvScoreParser.parseScore(nextLine[nextLine.length - 1]);
+                if (Double.isNaN(score)) {
+                    invalidRows++;
+                } else {
+                    statistics.add(score);
                 }
             }
         }
         
-        return scores;
+        warnInvalidRows(invalidRows, path);
+        return statistics;
     }
     
-    private String generateStatistics(List<Double> scores) {
-        Collections.sort(scores);
-        
-        double mean = scores.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double median = calculateMedian(scores);
-        double min = scores.get(0);
-        double max = scores.get(scores.size() - 1);
+    private static void warnInvalidRows(long invalidRows, Path path) {
+        if (invalidRows > 0) {
+            logger.warn("Skipped {} rows with an invalid score format in {}", invalidRows, path);
+        }
+    }
+    
+    private String generateStatistics(ScoreStatistics statistics) {
+        return generateStatistics(statistics.summarize(false));
+    }
+    
+    private String generateStatistics(ScoreStatistics statistics, String emptyMessage) {
+        return statistics.isEmpty() ? emptyMessage : generateStatistics(statistics);
+    }
+    
+    private String generateStatistics(ScoreSummary summary) {
+        long total = summary.getCount();
+        double mean = summary.getMean();
+        double median = summary.getMedian();
         
         // Grade distribution
-        int aGrades = (int) scores.stream().filter(s -> s >= 90).count();
-        int bGrades = (int) scores.stream().filter(s -> s >= 80 && s < 90).count();
-        int cGrades = (int) scores.stream().filter(s -> s >= 70 && s < 80).count();
-        int dGrades = (int) scores.stream().filter(s -> s >= 60 && s < 70).count();
-        int fGrades = (int) scores.stream().filter(s -> s < 60).count();
+        long aGrades = summary.getGradeCount(ScoreStatistics.GRADE_A);
+        long bGrades = summary.getGradeCount(ScoreStatistics.GRADE_B);
+        long cGrades = summary.getGradeCount(ScoreStatistics.GRADE_C);
+        long dGrades = summary.getGradeCount(ScoreStatistics.GRADE_D);
+        long fGrades = summary.getGradeCount(ScoreStatistics.GRADE_F);
         
         StringBuilder stats = new StringBuilder();
         stats.append("STUDENT PERFORMANCE ANALYSIS\n");
         stats.append("============================\n\n");
-        stats.append("Total Students: ").append(scores.size()).append("\n");
+        stats.append("Total Students: ").append(total).append("\n");
         stats.append("Mean Score: ").append(String.format("%.2f", mean)).append("\n");
         stats.append("Median Score: ").append(String.format("%.2f", median)).append("\n");
-        stats.append("Minimum Score: ").append(String.format("%.2f", min)).append("\n");
-        stats.append("Maximum Score: ").append(String.format("%.2f", max)).append("\n\n");
+        stats.append("Standard Deviation: ").append(String.format("%.2f", summary.getStandardDeviation())).append("\n");
+        stats.append("Minimum Score: ").append(String.format("%.2f", summary.getMin())).append("\n");
+        stats.append("Maximum Score: ").append(String.format("%.2f", summary.getMax())).append("\n\n");
         
         stats.append("GRADE DISTRIBUTION:\n");
         stats.append("A (90-100): ").append(aGrades).append(" students (")
-             .append(String.format("%.1f", (aGrades * 100.0 / scores.size()))).append("%)\n");
+             .append(String.format("%.1f", (aGrades * 100.0 / total))).append("%)\n");
         stats.append("B (80-89):  ").append(bGrades).append(" students (")
-             .append(String.format("%.1f", (bGrades * 100.0 / scores.size()))).append("%)\n");
+             .append(String.format("%.1f", (bGrades * 100.0 / total))).append("%)\n");
         stats.append("C (70-79):  ").append(cGrades).append(" students (")
-             .append(String.format("%.1f", (cGrades * 100.0 / scores.size()))).append("%)\n");
+             .append(String.format("%.1f", (cGrades * 100.0 / total))).append("%)\n");
         stats.append("D (60-69):  ").append(dGrades).append(" students (")
-             .append(String.format("%.1f", (dGrades * 100.0 / scores.size()))).append("%)\n");
+             .append(String.format("%.1f", (dGrades * 100.0 / total))).append("%)\n");
         stats.append("F (0-59):   ").append(fGrades).append(" students (")
-             .append(String.format("%.1f", (fGrades * 100.0 / scores.size()))).append("%)\n\n");
+             .append(String.format("%.1f", (fGrades * 100.0 / total))).append("%)\n\n");
+        
+        if (summary.hasPercentiles()) {
+            if (summary.isApproximate()) {
+                stats.append("PERCENTILES (approximate, rank error ±")
+                     .append(String.format("%.2f", summary.getQuantileRankError() * 100)).append("%):\n");
+            } else {
+                stats.append("PERCENTILES:\n");
+            }
+            for (int i = 0; i < ScoreSummary.PERCENTILE_FRACTIONS.length; i++) {
+                stats.append("P").append(Math.round(ScoreSummary.PERCENTILE_FRACTIONS[i] * 100)).append(": ")
+                     .append(String.format("%.2f", summary.getPercentile(i))).append("\n");
+            }
+            stats.append("\n");
+        }
         
         // Recommendations
         stats.append("RECOMMENDATIONS:\n");
         if (mean < 70) {
             stats.append("- Class average is below 70%. Consider reviewing core concepts.\n");
         }
-        if (fGrades > scores.size() * 0.2) {
+        if (fGrades > total * 0.2) {
             stats.append("- More than 20% of students are failing. Additional support needed.\n");
         }
-        if (aGrades > scores.size() * 0.3) {
+        if (aGrades > total * 0.3) {
             stats.append("- Strong performance! Consider advanced challenges for top students.\n");
         }
         
         return stats.toString();
     }
     
-    private double calculateMedian(List<Double> sortedScores) {
-        int size = sortedScores.size();
-        if (size % 2 == 0) {
-            return (sortedScores.get(size / 2 - 1) + sortedScores.get(size / 2)) / 2.0;
-        } else {
-            return sortedScores.get(size / 2);
+    private String generateGroupedStatistics(GroupedScoreStatistics groups, String groupField) {
+        String title = "STUDENT PERFORMANCE BY " + groupField.toUpperCase();
+        
+        StringBuilder stats = new StringBuilder();
+        stats.append(title).append("\n");
+        stats.append("=".repeat(title.length())).append("\n\n");
+        stats.append("Groups: ").append(groups.getGroupCount()).append("\n");
+        stats.append("Total Students: ").append(groups.getTotalCount()).append("\n");
+        stats.append("Medians are approximate (rank error ±")
+             .append(String.format("%.2f", groups.getRankError() * 100)).append("%)\n\n");
+        
+        for (int group : groups.groupsByLabel()) {
+            stats.append(groups.getLabel(group)).append(":\n");
+            stats.append("  Students: ").append(groups.getCount(group))
+                 .append(", Mean: ").append(String.format("%.2f", groups.getMean(group)))
+                 .append(", Median: ").append(String.format("%.2f", groups.getMedian(group)))
+                 .append(", Std Dev: ").append(String.format("%.2f", groups.getStandardDeviation(group)))
+                 .append(", Min: ").append(String.format("%.2f", groups.getMin(group)))
+                 .append(", Max: ").append(String.format("%.2f", groups.getMax(group))).append("\n");
+            stats.append("  Grades: A ").append(groups.getGradeCount(group, ScoreStatistics.GRADE_A))
+                 .append(", B ").append(groups.getGradeCount(group, ScoreStatistics.GRADE_B))
+                 .append(", C ").append(groups.getGradeCount(group, ScoreStatistics.GRADE_C))
+                 .append(", D ").append(groups.getGradeCount(group, ScoreStatistics.GRADE_D))
+                 .append(", F ").append(groups.getGradeCount(group, ScoreStatistics.GRADE_F)).append("\n");
         }
+        
+        return stats.toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.classroom.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable rank index over one dataset, built once and then queried many
+ * times. Scores are held in a sorted primitive array, so a percentile rank
+ * is two binary searches; names are held sorted (lower-cased) next to their
+ * scores, so a student is found by exact name or unique name prefix in
+ * O(log n).
+ */
+public final class StudentRankIndex {
+    private final double[] sortedScores;
+    private final String[] sortedNames; // lower-cased, for lookup
+    private final String[] displayNames;
+    private final double[] scoresByName;
+
+    private StudentRankIndex(double[] sortedScores, String[] sortedNames, String[] displayNames,
+                             double[] scoresByName) {
+        this.sortedScores = sortedScores;
+        this.sortedNames = sortedNames;
+        this.displayNames = displayNames;
+        this.scoresByName = scoresByName;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return sortedScores.length;
+    }
+
+    /**
+     * Percentage of students scoring below the given score, counting ties as half.
+     */
+    public double percentileRank(double score) {
+        int below = lowerBound(score);
+        int equal = upperBound(score) - below;
+        return (below + 0.5 * equal) * 100.0 / sortedScores.length;
+    }
+
+    /**
+     * 1-based position of the score when ordered from highest, with ties sharing the best position.
+     */
+    public int rank(double score) {
+        return sortedScores.length - upperBound(score) + 1;
+    }
+
+    /**
+     * Students whose name equals the query (ignoring case), or failing that
+     * whose name starts with it. An empty result means no match; more than
+     * one means the query is ambiguous.
+     */
+    public List<Match> findStudents(String query) {
+        String key = query.trim().toLowerCase(Locale.ROOT);
+        List<Match> matches = new ArrayList<>();
+        if (key.isEmpty()) {
+            return matches;
+        }
+
+        int from = Arrays.binarySearch(sortedNames, key);
+        if (from < 0) {
+            from = -from - 1;
+        } else {
+            while (from > 0 && sortedNames[from - 1].equals(key)) from--;
+        }
+
+        boolean exact = false;
+        for (int i = from; i < sortedNames.length && sortedNames[i].startsWith(key); i++) {
+            if (sortedNames[i].equals(key)) {
+                if (!exact) {
+                    matches.clear();
+                    exact = true;
+                }
+                matches.add(new Match(displayNames[i], scoresByName[i]));
+            } else if (!exact) {
+                matches.add(new Match(displayNames[i], scoresByName[i]));
+            }
+        }
+        return matches;
+    }
+
+    private int lowerBound(double score) {
+        int low = 0;
+        int high = sortedScores.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedScores[mid] < score) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int upperBound(double score) {
+        int low = 0;
+        int high = sortedScores.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedScores[mid] <= score) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * A student found by name.
+     */
+    public static final class Match {
+        private final String name;
+        private final double score;
+
+        Match(String name, double score) {
+            this.name = name;
+            this.score = score;
+        }
+
+        public String getName() { return name; }
+        public double getScore() { return score; }
+    }
+
+    /**
+     * Collects (name, score) records; records without a name still count towards ranks.
+     */
+    public static final class Builder {
+        private double[] scores = new double[1024];
+        private String[] names = new String[1024];
+        private int count;
+        private int namedCount;
+
+        public void add(String name, double score) {
+            if (count == scores.length) {
+                scores = Arrays.copyOf(scores, count * 2);
+                names = Arrays.copyOf(names, count * 2);
+            }
+            scores[count] = score;
+            names[count] = name;
+            count++;
+            if (name != null) {
+                namedCount++;
+            }
+        }
+
+        public StudentRankIndex build() {
+            double[] sortedScores = Arrays.copyOf(scores, count);
+            Arrays.sort(sortedScores);
+
+            String[] lowerNames = new String[count];
+            Integer[] order = new Integer[namedCount];
+            for (int i = 0, named = 0; i < count; i++) {
+                if (names[i] != null) {
+                    lowerNames[i] = names[i].toLowerCase(Locale.ROOT);
+                    order[named++] = i;
+                }
+            }
+            Arrays.sort(order, (a, b) -> lowerNames[a].compareTo(lowerNames[b]));
+
+            String[] sortedNames = new String[namedCount];
+            String[] displayNames = new String[namedCount];
+            double[] scoresByName = new double[namedCount];
+            for (int i = 0; i < namedCount; i++) {
+                sortedNames[i] = lowerNames[order[i]];
+                displayNames[i] = names[order[i]];
+                scoresByName[i] = scores[order[i]];
+            }
+
+            return new StudentRankIndex(sortedScores, sortedNames, displayNames, scoresByName);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.classroom.tools;
+
+/**
+ * Keeps the k highest (or lowest) scoring students seen so far in a bounded
+ * binary heap over primitive arrays, so selecting from n records costs
+ * O(n log k) time and O(k) memory. On ties the earlier record is kept.
+ */
+public class TopKHeap {
+    private final boolean highest;
+    private final double[] keys; // score, negated when selecting the lowest
+    private final String[] names;
+    private int size;
+
+    /**
+     * @param k       number of students to keep
+     * @param highest true for top-K, false for bottom-K
+     */
+    public TopKHeap(int k, boolean highest) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.highest = highest;
+        this.keys = new double[k];
+        this.names = new String[k];
+    }
+
+    public void add(String name, double score) {
+        double key = highest ? score : -score;
+
+        if (size < keys.length) {
+            // Sift up from the new leaf
+            int child = size++;
+            while (child > 0) {
+                int parent = (child - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[child] = keys[parent];
+                names[child] = names[parent];
+                child = parent;
+            }
+            keys[child] = key;
+            names[child] = name;
+        } else if (key > keys[0]) {
+            // The root is the weakest kept student; replace it
+            siftDown(keys, names, size, key, name);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Kept students ordered best first (highest score for top-K, lowest for bottom-K).
+     */
+    public Entry[] toSortedArray() {
+        double[] heapKeys = new double[size];
+        String[] heapNames = new String[size];
+        System.arraycopy(keys, 0, heapKeys, 0, size);
+        System.arraycopy(names, 0, heapNames, 0, size);
+
+        // Repeatedly pop the weakest, filling the result from the back
+        Entry[] result = new Entry[size];
+        for (int remaining = size; remaining > 0; remaining--) {
+            double key = heapKeys[0];
+            result[remaining - 1] = new Entry(heapNames[0], highest ? key : -key);
+            siftDown(heapKeys, heapNames, remaining - 1, heapKeys[remaining - 1], heapNames[remaining - 1]);
+        }
+        return result;
+    }
+
+    /**
+     * Places (key, name) at the root of a min-heap of the given size and restores heap order.
+     */
+    private static void siftDown(double[] keys, String[] names, int size, double key, String name) {
+        int parent = 0;
+        int child;
+        while ((child = 2 * parent + 1) < size) {
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            keys[parent] = keys[child];
+            names[parent] = names[child];
+            parent = child;
+        }
+        if (size > 0) {
+            keys[parent] = key;
+            names[parent] = name;
+        }
+    }
+
+    /**
+     * One selected student.
+     */
+    public static final class Entry {
+        private final String name;
+        private final double score;
+
+        Entry(String name, double score) {
+            this.name = name;
+            this.score = score;
+        }
+
+        public String getName() { return name; }
+        public double getScore() { return score; }
+    }
+}
@@ -0,0 +1,128 @@
+package com.classroom.agents;
+
+import com.classroom.concurrent.Deadline;
+import com.classroom.concurrent.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExecutionGraphTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void passesResultsAlongDependencies() {
+        ExecutionGraph graph = new ExecutionGraph("test", executor);
+        ExecutionGraph.Node<Integer> root = graph.addAsync("root", () -> CompletableFuture.completedFuture(20));
+        ExecutionGraph.Node<Integer> doubled = graph.add("doubled", root, value -> value * 2);
+        ExecutionGraph.Node<String> label = graph.add("label", root, value -> "n=" + value);
+        ExecutionGraph.Node<String> joined = graph.add("joined", doubled, label, (value, text) -> text + "," + value);
+
+        assertEquals("n=20,40", graph.run(joined).join());
+        assertEquals(List.of("root", "doubled", "label", "joined"), List.copyOf(graph.getTimings().keySet()));
+    }
+
+    @Test
+    void runsIndependentNodesConcurrently() {
+        // Each branch waits for the other, so running them one after the other would time out
+        CyclicBarrier bothRunning = new CyclicBarrier(2);
+        ExecutionGraph graph = new ExecutionGraph("test", executor);
+        ExecutionGraph.Node<String> root = graph.addAsync("root", () -> CompletableFuture.completedFuture("x"));
+        ExecutionGraph.Node<String> left = graph.add("left", root, value -> await(bothRunning) + value);
+        ExecutionGraph.Node<String> right = graph.add("right", root, value -> value + await(bothRunning));
+        ExecutionGraph.Node<String> both = graph.add("both", left, right, (a, b) -> a + b);
+
+        assertEquals("okxxok", graph.run(both).join());
+    }
+
+    @Test
+    void failsWithTheFirstFailureAndSkipsDependents() {
+        AtomicBoolean dependentRan = new AtomicBoolean();
+        ExecutionGraph graph = new ExecutionGraph("test", executor);
+        ExecutionGraph.Node<Integer> root = graph.addAsync("root",
+            () -> CompletableFuture.failedFuture(new IllegalStateException("no data")));
+        ExecutionGraph.Node<Integer> dependent = graph.add("dependent", root, value -> {
+            dependentRan.set(true);
+            return value;
+        });
+
+        CompletionException e = assertThrows(CompletionException.class, () -> graph.run(dependent).join());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertFalse(dependentRan.get());
+    }
+
+    @Test
+    void skipsNodesOnceTheDeadlineHasExpired() throws InterruptedException {
+        Deadline deadline = Deadline.none();
+        CountDownLatch rootStarted = new CountDownLatch(1);
+        CompletableFuture<String> rootResult = new CompletableFuture<>();
+        AtomicBoolean dependentRan = new AtomicBoolean();
+
+        ExecutionGraph graph = new ExecutionGraph("test", executor, deadline);
+        ExecutionGraph.Node<String> root = graph.addAsync("root", () -> {
+            rootStarted.countDown();
+            return rootResult;
+        });
+        ExecutionGraph.Node<String> dependent = graph.add("dependent", root, value -> {
+            dependentRan.set(true);
+            return value;
+        });
+
+        CompletableFuture<String> result = graph.run(dependent);
+        rootStarted.await(5, TimeUnit.SECONDS);
+        deadline.cancel();
+        rootResult.complete("late");
+
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(DeadlineExceededException.class, e.getCause());
+        assertFalse(dependentRan.get());
+    }
+
+    @Test
+    void runsOnlyOnce() {
+        ExecutionGraph graph = new ExecutionGraph("test", executor);
+        ExecutionGraph.Node<String> root = graph.addAsync("root", () -> CompletableFuture.completedFuture("x"));
+        graph.run(root).join();
+
+        assertThrows(IllegalStateException.class, () -> graph.run(root));
+        assertThrows(IllegalStateException.class,
+            () -> graph.addAsync("late", () -> CompletableFuture.completedFuture("y")));
+    }
+
+    @Test
+    void rejectsNodesFromAnotherGraph() {
+        ExecutionGraph graph = new ExecutionGraph("test", executor);
+        ExecutionGraph other = new ExecutionGraph("other", executor);
+        ExecutionGraph.Node<String> foreign = other.addAsync("foreign", () -> CompletableFuture.completedFuture("x"));
+
+        assertThrows(IllegalArgumentException.class, () -> graph.add("dependent", foreign, value -> value));
+        assertThrows(IllegalArgumentException.class, () -> graph.run(foreign));
+    }
+
+    private static String await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+            return "ok";
+        } catch (Exception e) {
+            throw new IllegalStateException("Branches did not run concurrently", e);
+        }
+    }
+}
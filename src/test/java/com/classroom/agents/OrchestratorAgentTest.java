@@ -0,0 +1,66 @@
+package com.classroom.agents;
+
+import com.classroom.concurrent.Deadline;
+import com.classroom.memory.ClassroomMemoryService;
+import com.google.adk.core.AgentRuntime;
+import com.google.adk.core.InMemorySessionService;
+import com.google.adk.memory.MemoryBank;
+import com.google.adk.tools.ToolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrchestratorAgentTest {
+    private static final String LESSON_REQUEST = "Create a math lesson plan for 5th grade fractions";
+    private static final String DEADLINE_MESSAGE = "did not finish within its deadline";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final OrchestratorAgent orchestrator = new OrchestratorAgent(new AgentRuntime(),
+        new InMemorySessionService(), new ClassroomMemoryService(new MemoryBank()), new ToolRegistry(), executor);
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void followerOutlivesLeaderWhoseDeadlineExpires() throws InterruptedException {
+        // Generation takes about two seconds; only the leader gives up before then
+        Deadline leaderDeadline = Deadline.after(300, TimeUnit.MILLISECONDS, executor);
+        Deadline followerDeadline = Deadline.after(10, TimeUnit.SECONDS, executor);
+        Deadline syncDeadline = Deadline.after(10, TimeUnit.SECONDS, executor);
+        try {
+            CompletableFuture<String> leader = orchestrator.processAsync(LESSON_REQUEST, leaderDeadline);
+            Thread.sleep(50);
+            CompletableFuture<String> follower = orchestrator.processAsync(LESSON_REQUEST, followerDeadline);
+            String sync = orchestrator.process(LESSON_REQUEST, syncDeadline);
+
+            String leaderResponse = leader.join();
+            String followerResponse = follower.join();
+            assertTrue(leaderResponse.contains(DEADLINE_MESSAGE), leaderResponse);
+            assertTrue(followerResponse.contains("LESSON PLAN"), followerResponse);
+            assertTrue(sync.contains("LESSON PLAN"), sync);
+        } finally {
+            leaderDeadline.release();
+            followerDeadline.release();
+            syncDeadline.release();
+        }
+    }
+
+    @Test
+    void expiredDeadlineReturnsDeadlineMessage() {
+        Deadline deadline = Deadline.after(100, TimeUnit.MILLISECONDS, executor);
+        try {
+            String response = orchestrator.process(LESSON_REQUEST, deadline);
+            assertTrue(response.contains(DEADLINE_MESSAGE), response);
+        } finally {
+            deadline.release();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.classroom.agents;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneComputation() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        AtomicInteger computations = new AtomicInteger();
+        CompletableFuture<String> work = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("fractions", () -> {
+            computations.incrementAndGet();
+            return work;
+        });
+        CompletableFuture<String> second = flight.execute("fractions", () -> {
+            computations.incrementAndGet();
+            return CompletableFuture.completedFuture("duplicate");
+        });
+
+        assertEquals(1, computations.get());
+        assertEquals(1, flight.getInFlightCount());
+        assertFalse(first.isDone());
+
+        work.complete("plan");
+        assertEquals("plan", first.join());
+        assertEquals("plan", second.join());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    void callersAfterCompletionComputeAfresh() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        AtomicInteger computations = new AtomicInteger();
+
+        assertEquals("plan 1", flight.execute("key",
+            () -> CompletableFuture.completedFuture("plan " + computations.incrementAndGet())).join());
+        assertEquals("plan 2", flight.execute("key",
+            () -> CompletableFuture.completedFuture("plan " + computations.incrementAndGet())).join());
+    }
+
+    @Test
+    void distinctKeysRunIndependently() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        CompletableFuture<String> fractions = flight.execute("fractions", CompletableFuture::new);
+        CompletableFuture<String> decimals = flight.execute("decimals",
+            () -> CompletableFuture.completedFuture("decimals plan"));
+
+        assertEquals("decimals plan", decimals.join());
+        assertFalse(fractions.isDone());
+        assertEquals(1, flight.getInFlightCount());
+    }
+
+    @Test
+    void failuresReachEveryCallerAndReleaseTheKey() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        CompletableFuture<String> work = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("key", () -> work);
+        CompletableFuture<String> second = flight.execute("key", () -> work);
+
+        work.completeExceptionally(new IllegalStateException("generation failed"));
+
+        assertInstanceOf(IllegalStateException.class, assertThrows(CompletionException.class, first::join).getCause());
+        assertInstanceOf(IllegalStateException.class, assertThrows(CompletionException.class, second::join).getCause());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    void computationThrowingIsReportedAsFailure() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+
+        CompletableFuture<String> result = flight.execute("key", () -> {
+            throw new IllegalArgumentException("bad request");
+        });
+
+        assertInstanceOf(IllegalArgumentException.class, assertThrows(CompletionException.class, result::join).getCause());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    void cancellingOneCallerLeavesTheOthersWaiting() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        CompletableFuture<String> work = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("key", () -> work);
+        CompletableFuture<String> second = flight.execute("key", () -> work);
+
+        assertTrue(first.cancel(true));
+        assertFalse(work.isDone());
+
+        work.complete("plan");
+        assertEquals("plan", second.join());
+        assertTrue(first.isCancelled());
+    }
+}
@@ -0,0 +1,179 @@
+package com.classroom.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "deadline-test"));
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void noneNeverExpiresUntilCancelled() {
+        Deadline deadline = Deadline.none();
+        assertFalse(deadline.isExpired());
+        assertEquals(Long.MAX_VALUE, deadline.remainingMillis());
+        deadline.check();
+
+        deadline.cancel();
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.remainingMillis());
+        assertThrows(DeadlineExceededException.class, deadline::check);
+    }
+
+    @Test
+    void remainingTimeIsRoundedUpUntilExpiry() {
+        Deadline deadline = Deadline.after(1, TimeUnit.SECONDS, executor);
+        try {
+            long remaining = deadline.remainingMillis();
+            assertTrue(remaining > 0 && remaining <= 1000, "remaining " + remaining);
+        } finally {
+            deadline.release();
+        }
+    }
+
+    @Test
+    void expiryRunsListenersOnTheExecutor() throws InterruptedException {
+        CountDownLatch notified = new CountDownLatch(1);
+        AtomicReference<String> listenerThread = new AtomicReference<>();
+        Deadline deadline = Deadline.after(50, TimeUnit.MILLISECONDS, executor);
+        deadline.onExpiry(() -> {
+            listenerThread.set(Thread.currentThread().getName());
+            notified.countDown();
+        });
+
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+        assertEquals("deadline-test", listenerThread.get());
+        assertTrue(deadline.isExpired());
+    }
+
+    @Test
+    void checkDetectsExpiryWithoutNotifyingOnTheCallingThread() throws InterruptedException {
+        // An executor that holds the timer's hand-over until the test runs it
+        AtomicReference<Runnable> handedOver = new AtomicReference<>();
+        Deadline deadline = Deadline.after(20, TimeUnit.MILLISECONDS, handedOver::set);
+        AtomicBoolean notified = new AtomicBoolean();
+        deadline.onExpiry(() -> notified.set(true));
+        Thread.sleep(60);
+
+        assertThrows(DeadlineExceededException.class, deadline::check);
+        assertEquals(0, deadline.remainingMillis());
+        assertFalse(notified.get());
+
+        handedOver.get().run();
+        assertTrue(notified.get());
+    }
+
+    @Test
+    void cancelNotifiesAfterExpiryWasOnlyDetected() throws InterruptedException {
+        Deadline deadline = Deadline.after(20, TimeUnit.MILLISECONDS, task -> { });
+        AtomicBoolean notified = new AtomicBoolean();
+        deadline.onExpiry(() -> notified.set(true));
+        Thread.sleep(60);
+        assertTrue(deadline.isExpired());
+
+        deadline.cancel();
+        assertTrue(notified.get());
+    }
+
+    @Test
+    void releasedDeadlineNoLongerNotifies() throws InterruptedException {
+        AtomicBoolean notified = new AtomicBoolean();
+        Deadline deadline = Deadline.after(30, TimeUnit.MILLISECONDS, executor);
+        deadline.onExpiry(() -> notified.set(true));
+        deadline.release();
+        Thread.sleep(100);
+
+        assertFalse(notified.get());
+        // Still reports expiry when asked
+        assertTrue(deadline.isExpired());
+    }
+
+    @Test
+    void bindFailsPendingFuturesOnly() {
+        Deadline deadline = Deadline.none();
+        CompletableFuture<String> done = deadline.bind(new CompletableFuture<>());
+        CompletableFuture<String> pending = deadline.bind(new CompletableFuture<>());
+        done.complete("plan");
+
+        deadline.cancel();
+
+        assertEquals("plan", done.join());
+        assertThrows(DeadlineExceededException.class, pending::join);
+        CompletableFuture<String> late = deadline.bind(new CompletableFuture<>());
+        assertTrue(late.isCompletedExceptionally());
+    }
+
+    @Test
+    void runInterruptiblyInterruptsBlockedWorkAndClearsTheInterrupt() {
+        Deadline deadline = Deadline.after(50, TimeUnit.MILLISECONDS, executor);
+
+        boolean interrupted = deadline.runInterruptibly(() -> {
+            try {
+                Thread.sleep(10_000);
+                return false;
+            } catch (InterruptedException e) {
+                return true;
+            }
+        });
+
+        assertTrue(interrupted);
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void runInterruptiblyKeepsInterruptsFromElsewhere() {
+        Deadline deadline = Deadline.none();
+        try {
+            deadline.runInterruptibly(() -> {
+                // Interrupted by someone else before the deadline expires
+                Thread.currentThread().interrupt();
+                deadline.cancel();
+                return null;
+            });
+
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void runInterruptiblyRefusesExpiredDeadline() {
+        Deadline deadline = Deadline.none();
+        deadline.cancel();
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThrows(DeadlineExceededException.class, () -> deadline.runInterruptibly(() -> ran.getAndSet(true)));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void checkFailsAsyncWorkWithDeadlineExceeded() {
+        Deadline deadline = Deadline.none();
+        deadline.cancel();
+
+        CompletableFuture<Void> work = CompletableFuture.runAsync(deadline::check, executor);
+
+        CompletionException e = assertThrows(CompletionException.class, work::join);
+        assertInstanceOf(DeadlineExceededException.class, e.getCause());
+    }
+}
@@ -0,0 +1,85 @@
+package com.classroom.grading;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeywordAutomatonTest {
+
+    @Test
+    void findsCategoriesOfEveryMatchingTerm() {
+        KeywordAutomaton automaton = new KeywordAutomaton(
+            new String[] { "numerator", "denominator", "part of a whole", "divide" },
+            new int[] { 0, 0, 1, 2 }, 4);
+
+        boolean[] found = new boolean[4];
+        int matched = automaton.match("The DENOMINATOR counts the equal parts; a fraction is part of a whole.", found);
+
+        assertEquals(2, matched);
+        assertArrayEquals(new boolean[] { true, true, false, false }, found);
+    }
+
+    @Test
+    void matchesTermsThatEndInsideOtherTerms() {
+        // "he" and "hers" are only reachable through failure links while matching "ushers"
+        KeywordAutomaton automaton = new KeywordAutomaton(
+            new String[] { "he", "she", "his", "hers" }, new int[] { 0, 1, 2, 3 }, 4);
+
+        boolean[] found = new boolean[4];
+        int matched = automaton.match("ushers", found);
+
+        assertEquals(3, matched);
+        assertArrayEquals(new boolean[] { true, true, false, true }, found);
+    }
+
+    @Test
+    void noMatchLeavesFlagsCleared() {
+        KeywordAutomaton automaton = new KeywordAutomaton(new String[] { "photosynthesis" }, new int[] { 0 }, 1);
+
+        boolean[] found = new boolean[1];
+        assertEquals(0, automaton.match("photosynthesi", found));
+        assertEquals(0, automaton.match("", found));
+        assertArrayEquals(new boolean[] { false }, found);
+    }
+
+    @Test
+    void agreesWithContainsOnRandomText() {
+        String[] terms = { "ab", "bab", "aab", "bb", "abba", "a b" };
+        int[] categories = { 0, 1, 2, 3, 4, 5 };
+        KeywordAutomaton automaton = new KeywordAutomaton(terms, categories, terms.length);
+
+        Random random = new Random(7);
+        char[] alphabet = { 'a', 'b', 'A', 'B', ' ' };
+        for (int round = 0; round < 2_000; round++) {
+            char[] text = new char[random.nextInt(20)];
+            for (int i = 0; i < text.length; i++) {
+                text[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String folded = new String(text).toLowerCase(Locale.ROOT);
+
+            boolean[] expected = new boolean[terms.length];
+            int expectedCount = 0;
+            for (int i = 0; i < terms.length; i++) {
+                if (folded.contains(terms[i])) {
+                    expected[i] = true;
+                    expectedCount++;
+                }
+            }
+
+            boolean[] found = new boolean[terms.length];
+            assertEquals(expectedCount, automaton.match(new String(text), found), folded);
+            assertArrayEquals(expected, found);
+        }
+    }
+
+    @Test
+    void rejectsTermsWithoutCategories() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new KeywordAutomaton(new String[] { "a", "b" }, new int[] { 0 }, 1));
+    }
+}
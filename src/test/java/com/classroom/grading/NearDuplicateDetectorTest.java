@@ -0,0 +1,105 @@
+package com.classroom.grading;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearDuplicateDetectorTest {
+    private static final String FRACTIONS =
+        "A fraction represents a part of a whole where the denominator shows how many equal parts "
+            + "the whole is divided into and the numerator shows how many of those parts are taken";
+    private static final String PHOTOSYNTHESIS =
+        "Plants use sunlight water and carbon dioxide to produce glucose and oxygen in their leaves "
+            + "through a process that takes place inside the chloroplasts of plant cells";
+    private static final String DIVISION =
+        "Division splits a number into equal groups so twelve divided by four gives three groups "
+            + "of four and the remainder is whatever is left over after grouping";
+
+    @Test
+    void clustersCopiesDespiteCaseAndPunctuation() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(4);
+        detector.add(0, FRACTIONS);
+        detector.add(1, PHOTOSYNTHESIS);
+        detector.add(2, DIVISION);
+        detector.add(3, FRACTIONS.replace(" the ", ",  the... ").toUpperCase());
+
+        List<int[]> clusters = detector.findClusters();
+
+        assertEquals(1, clusters.size());
+        assertArrayEquals(new int[] { 0, 3 }, clusters.get(0));
+    }
+
+    @Test
+    void clustersAnswersWithOneWordChanged() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(3);
+        detector.add(0, PHOTOSYNTHESIS);
+        detector.add(1, DIVISION);
+        detector.add(2, PHOTOSYNTHESIS.replace("chloroplasts", "chloroplast"));
+
+        List<int[]> clusters = detector.findClusters();
+
+        assertEquals(1, clusters.size());
+        assertArrayEquals(new int[] { 0, 2 }, clusters.get(0));
+    }
+
+    @Test
+    void leavesDistinctAnswersUnclustered() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(3);
+        detector.add(0, FRACTIONS);
+        detector.add(1, PHOTOSYNTHESIS);
+        detector.add(2, DIVISION);
+
+        assertTrue(detector.findClusters().isEmpty());
+    }
+
+    @Test
+    void joinsLargeGroupsOfCopiesIntoOneCluster() {
+        // More copies than one bucket compares against
+        NearDuplicateDetector detector = new NearDuplicateDetector(21);
+        for (int i = 0; i < 20; i++) {
+            detector.add(i, DIVISION);
+        }
+        detector.add(20, FRACTIONS);
+
+        List<int[]> clusters = detector.findClusters();
+
+        assertEquals(1, clusters.size());
+        assertEquals(20, clusters.get(0).length);
+        assertEquals(0, clusters.get(0)[0]);
+        assertEquals(19, clusters.get(0)[19]);
+    }
+
+    @Test
+    void ignoresShortAnswersAndMissingIndexes() {
+        assertNull(NearDuplicateDetector.signature("Half of a whole thing."));
+
+        NearDuplicateDetector detector = new NearDuplicateDetector(4);
+        detector.add(0, "Half of a whole thing.");
+        detector.add(1, "Half of a whole thing.");
+        detector.add(3, DIVISION);
+
+        assertTrue(detector.findClusters().isEmpty());
+    }
+
+    @Test
+    void signatureSimilarityEstimatesJaccard() {
+        // 28 words give 26 shingles; changing the last word replaces 3 of them, leaving 23 of 29 shared
+        String base = PHOTOSYNTHESIS;
+        String changed = base.substring(0, base.lastIndexOf(' ')) + " membranes";
+        int[] a = NearDuplicateDetector.signature(base);
+        int[] b = NearDuplicateDetector.signature(changed);
+        assertNotNull(a);
+        assertNotNull(b);
+
+        double jaccard = 23.0 / 29.0;
+        assertEquals(jaccard, NearDuplicateDetector.similarity(a, b), 0.2);
+        assertEquals(1.0, NearDuplicateDetector.similarity(a, NearDuplicateDetector.signature(base)));
+        assertTrue(NearDuplicateDetector.similarity(a, NearDuplicateDetector.signature(DIVISION)) < 0.2);
+    }
+}
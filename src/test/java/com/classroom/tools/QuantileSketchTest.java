@@ -0,0 +1,114 @@
+package com.classroom.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+    private static final double[] FRACTIONS = { 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99 };
+
+    @Test
+    void quantilesStayWithinRankError() {
+        QuantileSketch sketch = QuantileSketch.withRankError(0.01);
+        double[] values = shuffledRange(200_000, 1);
+        for (double value : values) {
+            sketch.update(value);
+        }
+
+        assertEquals(values.length, sketch.getCount());
+        assertTrue(sketch.getRankError() <= 0.01);
+        assertRanksWithin(sketch, values.length, sketch.getRankError());
+    }
+
+    @Test
+    void memoryStaysBounded() {
+        QuantileSketch sketch = new QuantileSketch(200);
+        for (double value : shuffledRange(1_000_000, 2)) {
+            sketch.update(value);
+        }
+
+        // Roughly 3k retained values plus the minimum level capacities, independent of the input size
+        assertTrue(sketch.getRetainedItems() < 4 * sketch.getK(), "retained " + sketch.getRetainedItems());
+    }
+
+    @Test
+    void mergedSketchesStayWithinRankError() {
+        double[] values = shuffledRange(120_000, 3);
+        QuantileSketch merged = QuantileSketch.withRankError(0.01);
+        for (int part = 0; part < 4; part++) {
+            QuantileSketch sketch = QuantileSketch.withRankError(0.01);
+            for (int i = part * 30_000; i < (part + 1) * 30_000; i++) {
+                sketch.update(values[i]);
+            }
+            merged.merge(sketch);
+        }
+
+        assertEquals(values.length, merged.getCount());
+        assertRanksWithin(merged, values.length, merged.getRankError());
+    }
+
+    @Test
+    void extremesAreExact() {
+        QuantileSketch sketch = new QuantileSketch(8);
+        for (double value : shuffledRange(10_000, 4)) {
+            sketch.update(value);
+        }
+
+        assertEquals(0.0, sketch.getQuantile(0.0));
+        assertEquals(9_999.0, sketch.getQuantile(1.0));
+    }
+
+    @Test
+    void smallInputIsExact() {
+        QuantileSketch sketch = new QuantileSketch(200);
+        for (int value = 1; value <= 100; value++) {
+            sketch.update(value);
+        }
+        sketch.update(Double.NaN);
+
+        assertEquals(100, sketch.getCount());
+        assertEquals(50.0, sketch.getQuantile(0.5));
+        assertEquals(90.0, sketch.getQuantile(0.9));
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(1));
+        assertThrows(IllegalArgumentException.class, () -> QuantileSketch.withRankError(0));
+        assertThrows(IllegalArgumentException.class, () -> QuantileSketch.withRankError(1));
+    }
+
+    /**
+     * Input is a permutation of 0..n-1, so a value's rank is the value itself.
+     */
+    private static void assertRanksWithin(QuantileSketch sketch, int n, double rankError) {
+        double[] estimates = sketch.getQuantiles(FRACTIONS);
+        for (int i = 0; i < FRACTIONS.length; i++) {
+            double error = Math.abs(estimates[i] / n - FRACTIONS[i]);
+            assertTrue(error <= rankError, "rank error " + error + " at " + FRACTIONS[i]);
+        }
+        double[] sorted = estimates.clone();
+        Arrays.sort(sorted);
+        assertEquals(Arrays.toString(sorted), Arrays.toString(estimates));
+    }
+
+    private static double[] shuffledRange(int n, long seed) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+        return values;
+    }
+}
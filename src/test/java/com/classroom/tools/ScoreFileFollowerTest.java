@@ -0,0 +1,136 @@
+package com.classroom.tools;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreFileFollowerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsOnlyCompleteAppendedLines() throws IOException {
+        Path path = directory.resolve("scores.csv");
+        String complete = "name,score\nAlice,90\n\"Smith, Ann\",80\n";
+        write(path, complete + "Bob,7");
+
+        try (ScoreFileFollower follower = csvFollower(path)) {
+            assertEquals(2, follower.poll());
+            assertEquals(2, follower.getLatestSnapshot().getCount());
+            assertEquals(bytes(complete), follower.getLatestSnapshot().getOffset());
+            assertEquals("2 scores, mean 85.0", follower.getLatestReport());
+
+            // The partial row is completed by the next append
+            append(path, "0\nCarol,100\n");
+            assertEquals(2, follower.poll());
+            assertEquals(0, follower.poll());
+            assertEquals(4, follower.getLatestSnapshot().getCount());
+            assertEquals(Files.size(path), follower.getLatestSnapshot().getOffset());
+            assertEquals("4 scores, mean 85.0", follower.getLatestReport());
+        }
+    }
+
+    @Test
+    void rereadsTruncatedFileFromTheStart() throws IOException {
+        Path path = directory.resolve("scores.csv");
+        write(path, "name,score\nAlice,90\nBob,70\nCarol,80\n");
+
+        try (ScoreFileFollower follower = csvFollower(path)) {
+            assertEquals(3, follower.poll());
+
+            write(path, "name,score\nDan,60\n");
+            assertEquals(1, follower.poll());
+            assertEquals(1, follower.getLatestSnapshot().getCount());
+            assertEquals(Files.size(path), follower.getLatestSnapshot().getOffset());
+            assertEquals("1 scores, mean 60.0", follower.getLatestReport());
+        }
+    }
+
+    @Test
+    void skipsInvalidCsvRowsAndKeepsReading() throws IOException {
+        Path path = directory.resolve("scores.csv");
+        write(path, "name,score\nAlice,ninety\nBob,\nCarol,75\n");
+
+        try (ScoreFileFollower follower = csvFollower(path)) {
+            assertEquals(1, follower.poll());
+            assertEquals(Files.size(path), follower.getLatestSnapshot().getOffset());
+        }
+    }
+
+    @Test
+    void readsLinesLongerThanTheReadBuffer() throws IOException {
+        Path path = directory.resolve("scores.csv");
+        String longName = "x".repeat(200_000);
+        write(path, "name,score\n" + longName + ",95\nBob,85\n");
+
+        try (ScoreFileFollower follower = csvFollower(path)) {
+            assertEquals(2, follower.poll());
+            assertEquals(Files.size(path), follower.getLatestSnapshot().getOffset());
+            assertEquals("2 scores, mean 90.0", follower.getLatestReport());
+        }
+    }
+
+    @Test
+    void skipsMalformedJsonLinesWithoutLosingTheirNeighbours() throws IOException {
+        Path path = directory.resolve("scores.jsonl");
+        String lines = "{\"name\":\"Alice\",\"score\":90}\n{\"name\":\"Bob\",\"score\":\n{\"name\":\"Carol\",\"score\":70}\n";
+        write(path, lines + "{\"name\":\"Dan\",");
+
+        try (ScoreFileFollower follower = jsonFollower(path)) {
+            assertEquals(2, follower.poll());
+            assertEquals(bytes(lines), follower.getLatestSnapshot().getOffset());
+
+            append(path, "\"score\":80}\n");
+            assertEquals(1, follower.poll());
+            assertEquals(3, follower.getLatestSnapshot().getCount());
+            assertEquals(Files.size(path), follower.getLatestSnapshot().getOffset());
+        }
+    }
+
+    @Test
+    void publishesPlaceholderUntilScoresArrive() throws IOException {
+        Path path = directory.resolve("scores.csv");
+        write(path, "name,score\n");
+
+        try (ScoreFileFollower follower = csvFollower(path)) {
+            assertEquals(0, follower.poll());
+            assertTrue(follower.getLatestReport().startsWith("No scores received yet"));
+            assertEquals(bytes("name,score\n"), follower.getLatestSnapshot().getOffset());
+        }
+    }
+
+    private static ScoreFileFollower csvFollower(Path path) {
+        return new ScoreFileFollower(path, true, 0.01, new JsonScoreReader(new JsonFactory()),
+            ScoreFileFollowerTest::render);
+    }
+
+    private static ScoreFileFollower jsonFollower(Path path) {
+        return new ScoreFileFollower(path, false, 0.01, new JsonScoreReader(new JsonFactory()),
+            ScoreFileFollowerTest::render);
+    }
+
+    private static String render(ScoreStatistics statistics) {
+        return statistics.getCount() + " scores, mean " + statistics.getMean();
+    }
+
+    private static long bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void write(Path path, String text) throws IOException {
+        Files.writeString(path, text, StandardCharsets.UTF_8);
+    }
+
+    private static void append(Path path, String text) throws IOException {
+        Files.writeString(path, text, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
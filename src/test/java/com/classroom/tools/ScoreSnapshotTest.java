@@ -0,0 +1,146 @@
+package com.classroom.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreSnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsRowsAndSummary() throws IOException {
+        // Enough rows to drain every write buffer several times
+        int rows = 20_000;
+        double[] scores = new double[rows];
+        String[] ids = new String[rows];
+        Random random = new Random(5);
+        for (int i = 0; i < rows; i++) {
+            scores[i] = random.nextInt(10_001) / 100.0;
+            ids[i] = i % 1000 == 0 ? "" : "Élève " + i;
+        }
+
+        Path path = directory.resolve("scores" + ScoreSnapshot.FILE_EXTENSION);
+        ScoreStatistics expected = new ScoreStatistics();
+        ScoreSummary written;
+        try (ScoreSnapshot.Writer writer = ScoreSnapshot.newWriter(path, new ScoreStatistics())) {
+            for (int i = 0; i < rows; i++) {
+                writer.add(ids[i].isEmpty() ? null : ids[i], scores[i]);
+                expected.add(scores[i]);
+            }
+            written = writer.finish();
+        }
+
+        try (ScoreSnapshot snapshot = ScoreSnapshot.open(path)) {
+            assertEquals(rows, snapshot.getRowCount());
+            for (int i = 0; i < rows; i++) {
+                assertEquals(scores[i], snapshot.getScore(i));
+                assertEquals(ids[i], snapshot.getStudentId(i));
+            }
+            assertSummaryEquals(written, snapshot.getSummary());
+        }
+
+        ScoreSummary read = ScoreSnapshot.readSummary(path);
+        assertSummaryEquals(written, read);
+        assertEquals(rows, read.getCount());
+        assertEquals(expected.getMean(), read.getMean(), 1e-9);
+        assertEquals(expected.getVariance(), read.getVariance(), 1e-9);
+        assertEquals(expected.getMedian(), read.getMedian());
+        assertTrue(read.hasPercentiles());
+
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count(), "spool files are removed");
+        }
+    }
+
+    @Test
+    void roundTripsEmptySnapshot() throws IOException {
+        Path path = directory.resolve("empty" + ScoreSnapshot.FILE_EXTENSION);
+        try (ScoreSnapshot.Writer writer = ScoreSnapshot.newWriter(path, new ScoreStatistics())) {
+            writer.finish();
+        }
+
+        try (ScoreSnapshot snapshot = ScoreSnapshot.open(path)) {
+            assertEquals(0, snapshot.getRowCount());
+        }
+        assertEquals(0, ScoreSnapshot.readSummary(path).getCount());
+    }
+
+    @Test
+    void unfinishedWriterLeavesNoFile() throws IOException {
+        Path path = directory.resolve("partial" + ScoreSnapshot.FILE_EXTENSION);
+        try (ScoreSnapshot.Writer writer = ScoreSnapshot.newWriter(path, new ScoreStatistics())) {
+            writer.add("a", 90);
+        }
+
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path path = directory.resolve("scores.csv" + ScoreSnapshot.FILE_EXTENSION);
+        Files.writeString(path, "name,score\nAlice,90\n");
+
+        assertThrows(IOException.class, () -> ScoreSnapshot.readSummary(path));
+        assertThrows(IOException.class, () -> ScoreSnapshot.open(path));
+    }
+
+    @Test
+    void rejectsRowCountsBeyondIntIndexes() throws IOException {
+        Path path = directory.resolve("huge" + ScoreSnapshot.FILE_EXTENSION);
+        try (ScoreSnapshot.Writer writer = ScoreSnapshot.newWriter(path, new ScoreStatistics())) {
+            writer.finish();
+        }
+        writeRowCount(path, Integer.MAX_VALUE + 1L);
+
+        IOException e = assertThrows(IOException.class, () -> ScoreSnapshot.open(path));
+        assertTrue(e.getMessage().contains("row limit"), e.getMessage());
+
+        writeRowCount(path, -1);
+        assertThrows(IOException.class, () -> ScoreSnapshot.readSummary(path));
+    }
+
+    @Test
+    void recognisesSnapshotExtension() {
+        assertTrue(ScoreSnapshot.isSnapshotFile("data/scores" + ScoreSnapshot.FILE_EXTENSION));
+        assertFalse(ScoreSnapshot.isSnapshotFile("data/scores.csv"));
+    }
+
+    private static void writeRowCount(Path path, long rowCount) throws IOException {
+        // Row count follows the magic number and version in the little-endian header
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(rowCount);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(buffer, 2 * Integer.BYTES);
+        }
+    }
+
+    private static void assertSummaryEquals(ScoreSummary expected, ScoreSummary actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getSum(), actual.getSum());
+        assertEquals(expected.getMean(), actual.getMean());
+        assertEquals(expected.getVariance(), actual.getVariance());
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+        assertEquals(expected.getMedian(), actual.getMedian());
+        for (int grade = ScoreStatistics.GRADE_A; grade <= ScoreStatistics.GRADE_F; grade++) {
+            assertEquals(expected.getGradeCount(grade), actual.getGradeCount(grade));
+        }
+        for (int i = 0; i < ScoreSummary.PERCENTILE_FRACTIONS.length; i++) {
+            assertEquals(expected.getPercentile(i), actual.getPercentile(i));
+        }
+    }
+}
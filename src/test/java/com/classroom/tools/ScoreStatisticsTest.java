@@ -0,0 +1,187 @@
+package com.classroom.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreStatisticsTest {
+
+    @Test
+    void welfordMatchesTwoPassMeanAndVariance() {
+        double[] scores = randomScores(10_000, 1);
+        ScoreStatistics statistics = new ScoreStatistics(false);
+        for (double score : scores) {
+            statistics.add(score);
+        }
+
+        assertEquals(scores.length, statistics.getCount());
+        assertEquals(mean(scores), statistics.getMean(), 1e-9);
+        assertEquals(variance(scores), statistics.getVariance(), 1e-9);
+    }
+
+    @Test
+    void welfordIsStableForLargeOffsets() {
+        // Naive sum-of-squares loses every digit of the variance at this offset
+        ScoreStatistics statistics = new ScoreStatistics(false);
+        for (int i = 0; i < 1000; i++) {
+            statistics.add(1e9 + (i % 2 == 0 ? 1 : -1));
+        }
+
+        assertEquals(1e9, statistics.getMean(), 1e-6);
+        assertEquals(1.0, statistics.getVariance(), 1e-6);
+    }
+
+    @Test
+    void mergedPartsMatchSinglePass() {
+        double[] scores = randomScores(9_999, 2);
+        ScoreStatistics whole = new ScoreStatistics();
+        for (double score : scores) {
+            whole.add(score);
+        }
+
+        // Uneven parts, including an empty one, merged in order
+        int[] cuts = { 0, 17, 17, 4_000, 9_999 };
+        ScoreStatistics merged = new ScoreStatistics();
+        for (int p = 0; p + 1 < cuts.length; p++) {
+            ScoreStatistics part = new ScoreStatistics();
+            for (int i = cuts[p]; i < cuts[p + 1]; i++) {
+                part.add(scores[i]);
+            }
+            merged.merge(part);
+        }
+
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getSum(), merged.getSum(), 1e-6);
+        assertEquals(whole.getMean(), merged.getMean(), 1e-9);
+        assertEquals(whole.getVariance(), merged.getVariance(), 1e-9);
+        assertEquals(whole.getMin(), merged.getMin());
+        assertEquals(whole.getMax(), merged.getMax());
+        assertEquals(whole.getMedian(), merged.getMedian());
+        for (int grade = ScoreStatistics.GRADE_A; grade <= ScoreStatistics.GRADE_F; grade++) {
+            assertEquals(whole.getGradeCount(grade), merged.getGradeCount(grade));
+        }
+    }
+
+    @Test
+    void mergeIntoEmptyCopiesAggregates() {
+        ScoreStatistics part = new ScoreStatistics(false);
+        part.add(70);
+        part.add(90);
+
+        ScoreStatistics merged = new ScoreStatistics(false);
+        merged.merge(part);
+        merged.merge(new ScoreStatistics(false));
+
+        assertEquals(2, merged.getCount());
+        assertEquals(80.0, merged.getMean());
+        assertEquals(100.0, merged.getVariance());
+        assertEquals(70.0, merged.getMin());
+        assertEquals(90.0, merged.getMax());
+    }
+
+    @Test
+    void mergeRejectsDifferentModes() {
+        ScoreStatistics exact = new ScoreStatistics();
+        exact.add(70);
+        ScoreStatistics sketched = ScoreStatistics.approximate(0.01);
+        sketched.add(90);
+
+        assertThrows(IllegalArgumentException.class, () -> exact.merge(sketched));
+        assertThrows(IllegalArgumentException.class, () -> sketched.merge(new ScoreStatistics(false)));
+        assertThrows(IllegalArgumentException.class, () -> new ScoreStatistics(false).merge(exact));
+        assertEquals(1, exact.getCount());
+        assertEquals(1, sketched.getCount());
+    }
+
+    @Test
+    void selectFindsEveryRank() {
+        Random random = new Random(3);
+        for (int length = 1; length <= 64; length++) {
+            double[] values = new double[length];
+            for (int i = 0; i < length; i++) {
+                // Few distinct values, so duplicates hit the pivot often
+                values[i] = random.nextInt(8);
+            }
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+
+            for (int k = 0; k < length; k++) {
+                double[] work = values.clone();
+                double selected = ScoreStatistics.select(work, 0, length - 1, k);
+                assertEquals(sorted[k], selected, "rank " + k + " of " + length);
+                assertEquals(sorted[k], work[k]);
+                for (int i = 0; i < k; i++) {
+                    assertTrue(work[i] <= selected);
+                }
+                for (int i = k + 1; i < length; i++) {
+                    assertTrue(work[i] >= selected);
+                }
+            }
+        }
+    }
+
+    @Test
+    void selectHandlesSortedAndReversedInput() {
+        double[] ascending = new double[1001];
+        double[] descending = new double[1001];
+        for (int i = 0; i < ascending.length; i++) {
+            ascending[i] = i;
+            descending[i] = ascending.length - 1 - i;
+        }
+
+        assertEquals(500.0, ScoreStatistics.select(ascending, 0, 1000, 500));
+        assertEquals(500.0, ScoreStatistics.select(descending, 0, 1000, 500));
+    }
+
+    @Test
+    void medianAndPercentilesUseNearestRank() {
+        ScoreStatistics statistics = new ScoreStatistics();
+        for (int score = 100; score >= 1; score--) {
+            statistics.add(score);
+        }
+
+        assertEquals(50.5, statistics.getMedian());
+        double[] percentiles = statistics.getPercentiles(new double[] { 0.0, 0.25, 0.9, 1.0 });
+        assertEquals(1.0, percentiles[0]);
+        assertEquals(25.0, percentiles[1]);
+        assertEquals(90.0, percentiles[2]);
+        assertEquals(100.0, percentiles[3]);
+
+        ScoreStatistics odd = new ScoreStatistics();
+        odd.add(3);
+        odd.add(1);
+        odd.add(2);
+        assertEquals(2.0, odd.getMedian());
+    }
+
+    private static double[] randomScores(int count, long seed) {
+        Random random = new Random(seed);
+        double[] scores = new double[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = Math.round(random.nextGaussian() * 12 + 75);
+        }
+        return scores;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double variance(double[] values) {
+        double mean = mean(values);
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        return squares / values.length;
+    }
+}